@@ -0,0 +1,126 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+
+/**
+ * Heavyweight drawing surface for active rendering: the game loop draws each frame itself through a
+ * triple-buffered {@link BufferStrategy} instead of asking Swing to repaint on the EDT. The virtual-size
+ * world is rendered into a display-compatible {@link VolatileImage} first and then scaled onto the
+ * strategy's back buffer; both are re-rendered when the system reports their contents were lost.
+ */
+final class ActiveRenderSurface extends Canvas {
+    private static final long serialVersionUID = 1L;
+    private static final int BUFFER_COUNT = 3;
+
+    private final int virtualWidth;
+    private final int virtualHeight;
+    private final Object surfaceLock = new Object();
+    private BufferStrategy strategy;
+    private VolatileImage worldImage;
+
+    ActiveRenderSurface(int virtualWidth, int virtualHeight) {
+        this.virtualWidth = virtualWidth;
+        this.virtualHeight = virtualHeight;
+        setIgnoreRepaint(true);
+        setBackground(Color.BLACK);
+        // ให้ GamePanel ถือ focus ไว้ key bindings (WHEN_IN_FOCUSED_WINDOW) จะได้ทำงานเหมือนเดิม
+        setFocusable(false);
+    }
+
+    /**
+     * Renders and presents one frame. Returns false when the canvas is not on screen yet (or was just
+     * removed, e.g. while toggling fullscreen) and nothing was drawn.
+     */
+    boolean render(FrameRenderer renderer) {
+        synchronized (surfaceLock) {
+            if (!isDisplayable() || getWidth() <= 0 || getHeight() <= 0) {
+                return false;
+            }
+            try {
+                if (strategy == null) {
+                    createBufferStrategy(BUFFER_COUNT);
+                    strategy = getBufferStrategy();
+                }
+                GraphicsConfiguration config = getGraphicsConfiguration();
+                do {
+                    if (!validateWorldImage(config)) {
+                        return false;
+                    }
+                    Graphics2D gWorld = worldImage.createGraphics();
+                    try {
+                        renderer.renderWorld(gWorld);
+                    } finally {
+                        gWorld.dispose();
+                    }
+                    present(renderer);
+                } while (worldImage.contentsLost());
+                return true;
+            } catch (IllegalStateException e) {
+                // peer หายไประหว่างวาด (dispose/fullscreen) สร้างใหม่รอบหน้า
+                releaseSurfaces();
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        synchronized (surfaceLock) {
+            releaseSurfaces();
+            super.removeNotify();
+        }
+    }
+
+    private void present(FrameRenderer renderer) {
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.compose(g, worldImage, getWidth(), getHeight());
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private boolean validateWorldImage(GraphicsConfiguration config) {
+        if (config == null) {
+            return false;
+        }
+        if (worldImage == null) {
+            worldImage = config.createCompatibleVolatileImage(virtualWidth, virtualHeight);
+        }
+        if (worldImage.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            // จอเปลี่ยน (ย้ายหน้าต่างข้ามจอ/เปลี่ยนโหมด) ต้องสร้างภาพใหม่ให้ตรงกับ config ปัจจุบัน
+            worldImage.flush();
+            worldImage = config.createCompatibleVolatileImage(virtualWidth, virtualHeight);
+        }
+        return worldImage != null;
+    }
+
+    private void releaseSurfaces() {
+        if (strategy != null) {
+            strategy.dispose();
+            strategy = null;
+        }
+        if (worldImage != null) {
+            worldImage.flush();
+            worldImage = null;
+        }
+    }
+
+    interface FrameRenderer {
+        /**
+         * Draws the world/screens at the virtual resolution.
+         */
+        void renderWorld(Graphics2D g);
+
+        /**
+         * Scales the rendered world onto the window-sized back buffer and draws overlays.
+         */
+        void compose(Graphics2D g, Image world, int width, int height);
+    }
+}
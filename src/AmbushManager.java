@@ -1,11 +1,19 @@
 import java.util.Random;
 
 class AmbushManager {
-    private final Random random = new Random();
+    private final Random random;
     private double cooldown = 0.0;
     private double lastPosX = Double.NaN;
     private double lastPosY = Double.NaN;
 
+    AmbushManager() {
+        this(new Random());
+    }
+
+    AmbushManager(Random random) {
+        this.random = random;
+    }
+
     boolean tryTrigger(Player leader, TileMap map, double dt) {
         if (leader == null || map == null) {
             return false;
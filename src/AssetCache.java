@@ -0,0 +1,225 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Shared cache of loaded assets keyed by normalized resource path. Each asset is loaded once: a thread
+ * asking for an asset that another thread is already loading waits for that load instead of starting its
+ * own. Assets held through a {@link Handle} are pinned; unpinned ones stay cached and are evicted
+ * least-recently-used once {@link #getResidentBytes} exceeds the byte budget (pinned assets count against
+ * the budget but are never evicted).
+ */
+final class AssetCache<T> {
+    static final long DEFAULT_BUDGET_BYTES = 96L * 1024 * 1024;
+
+    private final Loader<T> loader;
+    private final ToLongFunction<T> sizer;
+    // access order: ตัวแรกคือตัวที่ไม่ได้ใช้นานที่สุด
+    private final LinkedHashMap<String, Entry<T>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long budgetBytes;
+    private long residentBytes;
+
+    AssetCache(long budgetBytes, Loader<T> loader, ToLongFunction<T> sizer) {
+        this.budgetBytes = Math.max(0L, budgetBytes);
+        this.loader = loader;
+        this.sizer = sizer;
+    }
+
+    /**
+     * The asset at {@code path}, loading it on a miss. The result is not pinned: callers that hold on to
+     * it keep it alive, but the cache may drop its own reference.
+     */
+    T get(String path) throws IOException {
+        return resolve(ResourceLoader.normalize(path), false).value;
+    }
+
+    /**
+     * The asset at {@code path}, pinned in the cache until the handle is closed.
+     */
+    Handle<T> acquire(String path) throws IOException {
+        Entry<T> entry = resolve(ResourceLoader.normalize(path), true);
+        return new Handle<>(this, entry);
+    }
+
+    synchronized void setBudgetBytes(long bytes) {
+        budgetBytes = Math.max(0L, bytes);
+        evictOverBudget();
+    }
+
+    synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Drops every unpinned asset.
+     */
+    synchronized void trim() {
+        long saved = budgetBytes;
+        budgetBytes = 0L;
+        evictOverBudget();
+        budgetBytes = saved;
+    }
+
+    private Entry<T> resolve(String key, boolean pin) throws IOException {
+        if (key == null || key.isEmpty()) {
+            throw new IOException("Resource path is empty");
+        }
+        Entry<T> entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(key);
+                entries.put(key, entry);
+                owner = true;
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            if (pin) {
+                entry.refs++;
+            }
+        }
+        if (owner) {
+            load(entry);
+        }
+        try {
+            entry.future.join();
+        } catch (CompletionException e) {
+            if (pin) {
+                release(entry);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Failed to load " + key + ": " + cause, cause);
+        }
+        return entry;
+    }
+
+    /**
+     * Runs on the thread that missed first, outside the cache lock so other assets stay available.
+     */
+    private void load(Entry<T> entry) {
+        T value;
+        try {
+            value = loader.load(entry.key);
+        } catch (IOException e) {
+            synchronized (this) {
+                // ไม่เก็บผลที่ล้มเหลวไว้: ครั้งหน้าลองโหลดใหม่
+                entries.remove(entry.key, entry);
+            }
+            entry.future.completeExceptionally(new UncheckedIOException(e));
+            return;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                entries.remove(entry.key, entry);
+            }
+            entry.future.completeExceptionally(e);
+            return;
+        }
+        synchronized (this) {
+            entry.value = value;
+            entry.bytes = Math.max(0L, sizer.applyAsLong(value));
+            residentBytes += entry.bytes;
+            evictOverBudget();
+        }
+        entry.future.complete(null);
+    }
+
+    private synchronized void release(Entry<T> entry) {
+        if (entry.refs > 0 && --entry.refs == 0) {
+            evictOverBudget();
+        }
+    }
+
+    private void evictOverBudget() {
+        Iterator<Entry<T>> it = entries.values().iterator();
+        while (residentBytes > budgetBytes && it.hasNext()) {
+            Entry<T> entry = it.next();
+            if (entry.refs > 0 || !entry.future.isDone()) {
+                continue;
+            }
+            it.remove();
+            residentBytes -= entry.bytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(String path) throws IOException;
+    }
+
+    /**
+     * A pinned asset. Closing releases the pin (once); the asset itself stays usable.
+     */
+    static final class Handle<T> implements AutoCloseable {
+        private final AssetCache<T> cache;
+        private final Entry<T> entry;
+        private boolean released;
+
+        private Handle(AssetCache<T> cache, Entry<T> entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        T get() {
+            return entry.value;
+        }
+
+        String getPath() {
+            return entry.key;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                cache.release(entry);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        final String key;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        // เขียนก่อน future complete และอ่านหลัง join
+        volatile T value;
+        long bytes;
+        int refs;
+
+        Entry(String key) {
+            this.key = key;
+        }
+    }
+}
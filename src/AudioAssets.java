@@ -0,0 +1,180 @@
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads audio off the logic thread for {@link SoundManager}. Sound effects are decoded on a small
+ * executor ({@link #DECLARED_SFX} right at startup) and handed out only once ready, so a sound that is
+ * still loading is skipped rather than waited for. Music tracks for the zones around the leader are
+ * prefetched as {@link AudioStreamer.Stream}s whose rings are already filled, and taken over by the mixer
+ * when the track actually plays.
+ * <p>
+ * Every asset has a load-state future that completes with true when it is ready and false when it could
+ * not be loaded; nothing here ever blocks on it.
+ */
+final class AudioAssets {
+    /**
+     * Every sound effect id the game plays. Hand-maintained: keep it in step with the {@code playSfx}
+     * call sites. Ids whose file is missing or empty are skipped by {@link #preloadSfx}.
+     */
+    static final List<String> DECLARED_SFX = List.of(
+            "bp_fail", "chest_open", "dialog_advance", "dialog_cancel", "dialog_move", "dialog_select",
+            "dialog_skip", "door_locked", "enemy_attack", "fast_travel", "guard", "medic_heal",
+            "menu_cancel", "menu_close", "menu_move", "menu_open", "menu_select", "skill_strike");
+    // ring ของแต่ละ stream 128 KB: จำกัดจำนวนที่ prefetch ค้างไว้
+    static final int MAX_PREFETCHED_TRACKS = 6;
+    private static final int LOADER_THREADS = 2;
+
+    private final AudioStreamer streamer;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<AudioMixer.Pcm>> sfx = new ConcurrentHashMap<>();
+    // logic thread เท่านั้น
+    private final Map<String, AudioStreamer.Stream> prefetched = new HashMap<>();
+
+    AudioAssets(AudioStreamer streamer) {
+        this.streamer = streamer;
+        this.executor = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+            Thread thread = new Thread(r, "AudioAssets");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static String pathFor(String id) {
+        return "resources/audio/" + id + ".wav";
+    }
+
+    void preloadSfx(Collection<String> ids) {
+        for (String id : ids) {
+            // เหมือน GamePanel.ensureAudioAsset: ไฟล์ที่ไม่มี (หรือว่าง) ข้ามไปเงียบ ๆ
+            if (hasAudioData(pathFor(id))) {
+                loadSfx(id);
+            }
+        }
+    }
+
+    /**
+     * Starts decoding {@code id} unless it already is; the future completes with null when it fails.
+     */
+    CompletableFuture<AudioMixer.Pcm> loadSfx(String id) {
+        return sfx.computeIfAbsent(id, key -> CompletableFuture.supplyAsync(() -> decode(key), executor));
+    }
+
+    /**
+     * The decoded sound if it is ready, otherwise null (and loading is started).
+     */
+    AudioMixer.Pcm sfxIfReady(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        return loadSfx(id).getNow(null);
+    }
+
+    /**
+     * Load state of a sound effect or of a prefetched track: true once it can play without touching
+     * the disk, false if it failed. Tracks that are not prefetched report false.
+     */
+    CompletableFuture<Boolean> loadState(String id) {
+        AudioStreamer.Stream stream = prefetched.get(id);
+        if (stream != null) {
+            return stream.buffered();
+        }
+        CompletableFuture<AudioMixer.Pcm> pending = sfx.get(id);
+        if (pending != null) {
+            return pending.thenApply(pcm -> pcm != null);
+        }
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Keeps exactly {@code trackIds} (up to {@link #MAX_PREFETCHED_TRACKS}) buffered and ready: streams
+     * for tracks no longer wanted are closed, new ones are opened on the streamer thread.
+     */
+    void prefetchMusic(Collection<String> trackIds) {
+        Iterator<Map.Entry<String, AudioStreamer.Stream>> it = prefetched.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, AudioStreamer.Stream> entry = it.next();
+            if (!trackIds.contains(entry.getKey()) || entry.getValue().hasFailed()) {
+                entry.getValue().close();
+                it.remove();
+            }
+        }
+        for (String id : trackIds) {
+            if (prefetched.size() >= MAX_PREFETCHED_TRACKS) {
+                break;
+            }
+            if (id != null && !id.isEmpty() && !prefetched.containsKey(id)) {
+                prefetched.put(id, streamer.open(id, pathFor(id)));
+            }
+        }
+    }
+
+    /**
+     * The prefetched stream for {@code trackId} (handed over to the caller), or a newly opened one.
+     */
+    AudioStreamer.Stream takeMusic(String trackId) {
+        AudioStreamer.Stream stream = prefetched.remove(trackId);
+        if (stream != null && !stream.hasFailed()) {
+            return stream;
+        }
+        if (stream != null) {
+            stream.close();
+        }
+        return streamer.open(trackId, pathFor(trackId));
+    }
+
+    void close() {
+        for (AudioStreamer.Stream stream : prefetched.values()) {
+            stream.close();
+        }
+        prefetched.clear();
+        executor.shutdownNow();
+    }
+
+    private static boolean hasAudioData(String path) {
+        if (!ResourceLoader.exists(path)) {
+            return false;
+        }
+        try {
+            Path local = ResourceLoader.toLocalPath(path);
+            if (local != null) {
+                return Files.size(local) > 0;
+            }
+            // อยู่ใน jar: ลองอ่านไบต์แรกแล้วปิด stream ทันที
+            try (InputStream in = ResourceLoader.openStream(path)) {
+                return in.read() >= 0;
+            }
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static AudioMixer.Pcm decode(String id) {
+        String path = pathFor(id);
+        try {
+            URL url = ResourceLoader.getResourceUrl(path);
+            try (AudioInputStream stream = url != null
+                    ? AudioSystem.getAudioInputStream(url)
+                    : AudioSystem.getAudioInputStream(new java.io.File(path))) {
+                return AudioMixer.Pcm.decode(id, stream);
+            }
+        } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+            System.err.println("Audio load failed for " + id + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Software mixer: every sound goes through one {@link SourceDataLine} (44.1 kHz, 16 bit stereo), fed by
+ * a high priority thread that mixes a fixed pool of {@link #MAX_VOICES} voices in blocks of
+ * {@link #BLOCK_FRAMES} frames. Sounds are decoded once into {@link Pcm} buffers and any number of
+ * voices can play the same buffer, so rapid repeats overlap instead of restarting each other. Long music
+ * tracks are not decoded up front but read from an {@link AudioStreamer.Stream} ring buffer.
+ * <p>
+ * The game thread only posts commands to a lock-free queue; voices and gains are owned by the mixer
+ * thread. When the pool is full the oldest one-shot voice is stolen (music loops are never stolen), and
+ * one sound never holds more than {@link #MAX_INSTANCES_PER_SOUND} voices.
+ */
+final class AudioMixer {
+    static final float SAMPLE_RATE = 44100f;
+    static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    static final int MAX_VOICES = 16;
+    static final int MAX_INSTANCES_PER_SOUND = 4;
+    static final int BLOCK_FRAMES = 512;
+    // บัฟเฟอร์ของ line 4 block ~ 46 ms latency
+    private static final int LINE_BLOCKS = 4;
+    // ramp สั้นๆ ตอนหยุดเสียง กันเสียงคลิก
+    static final float DEFAULT_FADE_SECONDS = 0.01f;
+
+    private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+    private final Voice[] voices = new Voice[MAX_VOICES];
+    private final float[] channelGain = new float[SoundManager.Channel.values().length];
+    private final float[] mix = new float[BLOCK_FRAMES * 2];
+    private final short[] streamBlock = new short[BLOCK_FRAMES * 2];
+    private final byte[] block = new byte[BLOCK_FRAMES * 4];
+    private float masterGain = 1f;
+    private boolean muted;
+    private long voiceCounter;
+    private volatile int activeVoices;
+    private volatile long stolenVoices;
+    private volatile boolean running;
+    private SourceDataLine line;
+    private Thread thread;
+
+    AudioMixer() {
+        for (int i = 0; i < voices.length; i++) {
+            voices[i] = new Voice();
+        }
+        java.util.Arrays.fill(channelGain, 1f);
+    }
+
+    /**
+     * Opens the output line and starts the mixer thread. Returns false (and the mixer stays silent)
+     * when no audio device is available.
+     */
+    boolean start() {
+        if (running) {
+            return true;
+        }
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, block.length * LINE_BLOCKS);
+            line.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Audio output unavailable: " + e.getMessage());
+            line = null;
+            return false;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, "AudioMixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    void close() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        if (line != null) {
+            line.stop();
+            line.close();
+            line = null;
+        }
+        commands.clear();
+    }
+
+    // ---- commands (any thread) ----
+
+    /**
+     * @param fadeInSeconds 0 starts at full gain
+     */
+    void play(Pcm pcm, SoundManager.Channel channel, boolean loop, float gain, float fadeInSeconds) {
+        if (pcm == null || pcm.frames == 0 || !running) {
+            return;
+        }
+        Command c = new Command(CommandType.PLAY, channel);
+        c.pcm = pcm;
+        c.loop = loop;
+        c.value = gain;
+        c.fadeFrames = secondsToFrames(fadeInSeconds);
+        commands.add(c);
+    }
+
+    /**
+     * Plays a streamed track until stopped (the streamer loops it). The mixer closes the stream when
+     * the voice ends, including when the command is dropped.
+     */
+    void play(AudioStreamer.Stream stream, SoundManager.Channel channel, float gain, float fadeInSeconds) {
+        if (stream == null) {
+            return;
+        }
+        if (!running) {
+            stream.close();
+            return;
+        }
+        Command c = new Command(CommandType.PLAY, channel);
+        c.stream = stream;
+        c.loop = true;
+        c.value = gain;
+        c.fadeFrames = secondsToFrames(fadeInSeconds);
+        commands.add(c);
+    }
+
+    void stopChannel(SoundManager.Channel channel, float fadeOutSeconds) {
+        post(CommandType.STOP_CHANNEL, channel, 0f, fadeOutSeconds);
+    }
+
+    void stopAll(float fadeOutSeconds) {
+        post(CommandType.STOP_ALL, null, 0f, fadeOutSeconds);
+    }
+
+    void setChannelGain(SoundManager.Channel channel, float gain) {
+        post(CommandType.CHANNEL_GAIN, channel, gain, 0f);
+    }
+
+    void setMasterGain(float gain) {
+        post(CommandType.MASTER_GAIN, null, gain, 0f);
+    }
+
+    void setMuted(boolean muted) {
+        post(CommandType.MUTE, null, muted ? 1f : 0f, 0f);
+    }
+
+    int getActiveVoices() {
+        return activeVoices;
+    }
+
+    long getStolenVoices() {
+        return stolenVoices;
+    }
+
+    private void post(CommandType type, SoundManager.Channel channel, float value, float fadeSeconds) {
+        if (!running) {
+            return;
+        }
+        Command c = new Command(type, channel);
+        c.value = value;
+        c.fadeFrames = secondsToFrames(fadeSeconds);
+        commands.add(c);
+    }
+
+    private static int secondsToFrames(float seconds) {
+        return seconds <= 0f ? 0 : Math.max(1, Math.round(seconds * SAMPLE_RATE));
+    }
+
+    // ---- mixer thread ----
+
+    private void runLoop() {
+        while (running) {
+            render(block, BLOCK_FRAMES);
+            // write บล็อกจนกว่า line มีที่ว่าง: ตัวนี้คุมจังหวะของ thread
+            line.write(block, 0, BLOCK_FRAMES * 4);
+        }
+    }
+
+    /**
+     * Applies pending commands and mixes {@code frames} frames of 16 bit stereo into {@code out}. Runs
+     * on the mixer thread (or a test harness standing in for it).
+     */
+    void render(byte[] out, int frames) {
+        drainCommands();
+        java.util.Arrays.fill(mix, 0, frames * 2, 0f);
+        int active = 0;
+        for (Voice voice : voices) {
+            if (!voice.isActive()) {
+                continue;
+            }
+            float scale = muted ? 0f : masterGain * channelGain[voice.channel.ordinal()];
+            if (voice.stream != null) {
+                mixStream(voice, frames, scale);
+            } else {
+                mixVoice(voice, frames, scale);
+            }
+            if (voice.isActive()) {
+                active++;
+            }
+        }
+        activeVoices = active;
+        for (int i = 0, b = 0; i < frames * 2; i++, b += 2) {
+            int s = Math.round(mix[i]);
+            if (s > Short.MAX_VALUE) {
+                s = Short.MAX_VALUE;
+            } else if (s < Short.MIN_VALUE) {
+                s = Short.MIN_VALUE;
+            }
+            out[b] = (byte) s;
+            out[b + 1] = (byte) (s >> 8);
+        }
+    }
+
+    private void mixVoice(Voice voice, int frames, float scale) {
+        short[] samples = voice.pcm.samples;
+        int total = voice.pcm.frames;
+        int frame = voice.frame;
+        float gain = voice.gain;
+        for (int i = 0; i < frames; i++) {
+            if (frame >= total) {
+                if (!voice.loop) {
+                    voice.release();
+                    return;
+                }
+                frame = 0;
+            }
+            if (voice.rampFrames > 0) {
+                gain += voice.rampStep;
+                if (--voice.rampFrames == 0) {
+                    gain = voice.targetGain;
+                    if (voice.stopAfterRamp) {
+                        voice.release();
+                        return;
+                    }
+                }
+            }
+            float g = gain * scale;
+            mix[i * 2] += samples[frame * 2] * g;
+            mix[i * 2 + 1] += samples[frame * 2 + 1] * g;
+            frame++;
+        }
+        voice.frame = frame;
+        voice.gain = gain;
+    }
+
+    /**
+     * Like {@link #mixVoice} but reads from the stream's ring; frames not buffered yet are silent and
+     * the gain ramp keeps running through them.
+     */
+    private void mixStream(Voice voice, int frames, float scale) {
+        if (voice.stream.hasFailed()) {
+            voice.release();
+            return;
+        }
+        int ready = voice.stream.read(streamBlock, frames);
+        float gain = voice.gain;
+        for (int i = 0; i < frames; i++) {
+            if (voice.rampFrames > 0) {
+                gain += voice.rampStep;
+                if (--voice.rampFrames == 0) {
+                    gain = voice.targetGain;
+                    if (voice.stopAfterRamp) {
+                        voice.release();
+                        return;
+                    }
+                }
+            }
+            if (i < ready) {
+                float g = gain * scale;
+                mix[i * 2] += streamBlock[i * 2] * g;
+                mix[i * 2 + 1] += streamBlock[i * 2 + 1] * g;
+            }
+        }
+        voice.gain = gain;
+    }
+
+    private void drainCommands() {
+        Command c;
+        while ((c = commands.poll()) != null) {
+            switch (c.type) {
+                case PLAY -> startVoice(c);
+                case STOP_CHANNEL, STOP_ALL -> {
+                    for (Voice voice : voices) {
+                        if (voice.isActive() && (c.type == CommandType.STOP_ALL || voice.channel == c.channel)) {
+                            voice.fadeTo(0f, Math.max(1, c.fadeFrames), true);
+                        }
+                    }
+                }
+                case CHANNEL_GAIN -> channelGain[c.channel.ordinal()] = clamp01(c.value);
+                case MASTER_GAIN -> masterGain = clamp01(c.value);
+                case MUTE -> muted = c.value != 0f;
+            }
+        }
+    }
+
+    private void startVoice(Command c) {
+        Voice voice = allocate(c.pcm);
+        if (voice == null) {
+            if (c.stream != null) {
+                c.stream.close();
+            }
+            return;
+        }
+        voice.release();
+        voice.pcm = c.pcm;
+        voice.stream = c.stream;
+        voice.channel = c.channel;
+        voice.loop = c.loop;
+        voice.frame = 0;
+        voice.order = ++voiceCounter;
+        voice.rampFrames = 0;
+        voice.stopAfterRamp = false;
+        if (c.fadeFrames > 0) {
+            voice.gain = 0f;
+            voice.fadeTo(c.value, c.fadeFrames, false);
+        } else {
+            voice.gain = c.value;
+            voice.targetGain = c.value;
+        }
+    }
+
+    /**
+     * A free voice, or the one to steal: the oldest voice of the same sound when it already has
+     * {@link #MAX_INSTANCES_PER_SOUND}, otherwise the oldest one-shot voice. Null when only loops play.
+     */
+    private Voice allocate(Pcm pcm) {
+        Voice free = null;
+        Voice oldestSame = null;
+        Voice oldestOneShot = null;
+        int sameCount = 0;
+        for (Voice voice : voices) {
+            if (!voice.isActive()) {
+                if (free == null) {
+                    free = voice;
+                }
+                continue;
+            }
+            if (pcm != null && voice.pcm == pcm) {
+                sameCount++;
+                if (oldestSame == null || voice.order < oldestSame.order) {
+                    oldestSame = voice;
+                }
+            }
+            if (!voice.loop && (oldestOneShot == null || voice.order < oldestOneShot.order)) {
+                oldestOneShot = voice;
+            }
+        }
+        Voice victim;
+        if (sameCount >= MAX_INSTANCES_PER_SOUND && !oldestSame.loop) {
+            victim = oldestSame;
+        } else if (free != null) {
+            return free;
+        } else {
+            victim = oldestOneShot;
+        }
+        if (victim != null) {
+            stolenVoices++;
+        }
+        return victim;
+    }
+
+    private static float clamp01(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+
+    private enum CommandType {
+        PLAY,
+        STOP_CHANNEL,
+        STOP_ALL,
+        CHANNEL_GAIN,
+        MASTER_GAIN,
+        MUTE
+    }
+
+    private static final class Command {
+        final CommandType type;
+        final SoundManager.Channel channel;
+        Pcm pcm;
+        AudioStreamer.Stream stream;
+        boolean loop;
+        float value;
+        int fadeFrames;
+
+        Command(CommandType type, SoundManager.Channel channel) {
+            this.type = type;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Voice {
+        Pcm pcm;
+        AudioStreamer.Stream stream;
+        SoundManager.Channel channel;
+        boolean loop;
+        int frame;
+        long order;
+        float gain;
+        float targetGain;
+        float rampStep;
+        int rampFrames;
+        boolean stopAfterRamp;
+
+        void fadeTo(float target, int frames, boolean stop) {
+            targetGain = target;
+            rampFrames = frames;
+            rampStep = (target - gain) / frames;
+            stopAfterRamp = stop;
+        }
+
+        boolean isActive() {
+            return pcm != null || stream != null;
+        }
+
+        void release() {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+            pcm = null;
+            rampFrames = 0;
+        }
+    }
+
+    /**
+     * A decoded sound: interleaved 16 bit stereo samples at {@link #SAMPLE_RATE}.
+     */
+    static final class Pcm {
+        final String id;
+        final short[] samples;
+        final int frames;
+
+        Pcm(String id, short[] samples) {
+            this.id = id;
+            this.samples = samples;
+            this.frames = samples.length / 2;
+        }
+
+        int sizeBytes() {
+            return samples.length * 2;
+        }
+
+        /**
+         * Decodes any format Java Sound can read (16 bit PCM, mono or stereo, any rate), converting to
+         * the mixer format; other rates are resampled linearly.
+         */
+        static Pcm decode(String id, AudioInputStream source) throws IOException {
+            AudioFormat in = source.getFormat();
+            int channels = Math.max(1, in.getChannels());
+            AudioFormat pcm16 = new AudioFormat(in.getSampleRate(), 16, channels, true, false);
+            byte[] bytes;
+            try (AudioInputStream converted = AudioSystem.getAudioInputStream(pcm16, source)) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                        (int) Math.max(4096, Math.min(Integer.MAX_VALUE, source.getFrameLength() * pcm16.getFrameSize())));
+                converted.transferTo(buffer);
+                bytes = buffer.toByteArray();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("unsupported audio format " + in, e);
+            }
+            int sourceFrames = bytes.length / (2 * channels);
+            short[] stereo = new short[sourceFrames * 2];
+            for (int f = 0; f < sourceFrames; f++) {
+                int base = f * channels * 2;
+                short left = (short) ((bytes[base] & 0xFF) | (bytes[base + 1] << 8));
+                short right = left;
+                if (channels > 1) {
+                    right = (short) ((bytes[base + 2] & 0xFF) | (bytes[base + 3] << 8));
+                }
+                stereo[f * 2] = left;
+                stereo[f * 2 + 1] = right;
+            }
+            float rate = in.getSampleRate();
+            if (rate > 0 && Math.abs(rate - SAMPLE_RATE) > 1f) {
+                stereo = resample(stereo, rate / SAMPLE_RATE);
+            }
+            return new Pcm(id, stereo);
+        }
+
+        private static short[] resample(short[] stereo, double step) {
+            int inFrames = stereo.length / 2;
+            int outFrames = (int) Math.floor((inFrames - 1) / step) + 1;
+            short[] out = new short[Math.max(0, outFrames) * 2];
+            for (int f = 0; f < outFrames; f++) {
+                double pos = f * step;
+                int i = (int) pos;
+                double t = pos - i;
+                int next = Math.min(inFrames - 1, i + 1);
+                out[f * 2] = (short) Math.round(stereo[i * 2] * (1 - t) + stereo[next * 2] * t);
+                out[f * 2 + 1] = (short) Math.round(stereo[i * 2 + 1] * (1 - t) + stereo[next * 2 + 1] * t);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where game logic sends music and sound effects. {@link SoundManager} mixes them onto one output line;
+ * {@link #SILENT} only remembers which channels would be playing, for headless runs without a mixer.
+ */
+interface AudioSink {
+    AudioSink SILENT = new SilentAudioSink();
+
+    void setMuted(boolean muted);
+
+    void setMasterGain(float gain);
+
+    void setChannelGain(SoundManager.Channel channel, float gain);
+
+    void playAmbient(String trackId);
+
+    void playBattle(String trackId);
+
+    boolean isChannelPlaying(SoundManager.Channel channel);
+
+    void stopChannel(SoundManager.Channel channel);
+
+    void stopAll();
+
+    void playSfx(String sfxId);
+
+    /**
+     * Hint that these music tracks may play soon (e.g. the zones next to the leader's); replaces the
+     * previous hint.
+     */
+    void prefetchMusic(Collection<String> trackIds);
+
+    /**
+     * Completes with true once {@code assetId} can play without loading, false if it failed to load.
+     */
+    CompletableFuture<Boolean> loadState(String assetId);
+
+    /**
+     * Releases the output line and audio threads when the game shuts down.
+     */
+    void close();
+
+    // เก็บสถานะ channel ไว้ให้ updateAmbientTrack เห็นว่าเพลงเล่นอยู่ ไม่สั่งเล่นซ้ำทุก step
+    final class SilentAudioSink implements AudioSink {
+        private volatile boolean ambientPlaying;
+        private volatile boolean battlePlaying;
+
+        @Override
+        public void setMuted(boolean muted) {
+        }
+
+        @Override
+        public void setMasterGain(float gain) {
+        }
+
+        @Override
+        public void setChannelGain(SoundManager.Channel channel, float gain) {
+        }
+
+        @Override
+        public void playAmbient(String trackId) {
+            ambientPlaying = true;
+        }
+
+        @Override
+        public void playBattle(String trackId) {
+            battlePlaying = true;
+        }
+
+        @Override
+        public boolean isChannelPlaying(SoundManager.Channel channel) {
+            return switch (channel) {
+                case AMBIENT -> ambientPlaying;
+                case BATTLE -> battlePlaying;
+                case UI -> false;
+            };
+        }
+
+        @Override
+        public void stopChannel(SoundManager.Channel channel) {
+            switch (channel) {
+                case AMBIENT -> ambientPlaying = false;
+                case BATTLE -> battlePlaying = false;
+                case UI -> { /* reserved for later */ }
+            }
+        }
+
+        @Override
+        public void stopAll() {
+            ambientPlaying = false;
+            battlePlaying = false;
+        }
+
+        @Override
+        public void playSfx(String sfxId) {
+        }
+
+        @Override
+        public void prefetchMusic(Collection<String> trackIds) {
+        }
+
+        @Override
+        public CompletableFuture<Boolean> loadState(String assetId) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
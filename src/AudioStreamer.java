@@ -0,0 +1,324 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams long music tracks from disk for {@link AudioMixer}. Each {@link Stream} owns a ring buffer of
+ * {@link #RING_FRAMES} frames; one background thread opens the file, converts it to the mixer format and
+ * keeps the ring filled in chunks of {@link #CHUNK_FRAMES}, reopening the file at the end so loops have
+ * no gap. Java Sound only decodes to 16 bit PCM at the file's own rate and channel count; mono is
+ * upmixed and other rates are resampled linearly here, chunk by chunk, as {@link AudioMixer.Pcm#decode}
+ * does for sound effects. The mixer thread reads from the ring without locking (single producer, single consumer).
+ * <p>
+ * Nothing here runs on the logic thread except {@link #open}, which only queues the stream.
+ */
+final class AudioStreamer {
+    // 32768 frames ~ 0.74 s ที่ 44.1 kHz, 128 KB ต่อ stream
+    static final int RING_FRAMES = 1 << 15;
+    static final int CHUNK_FRAMES = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Queue<Stream> pending = new ConcurrentLinkedQueue<>();
+    private final List<Stream> active = new ArrayList<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Queues {@code resourcePath} for streaming; the file is opened and pre-filled on the streamer
+     * thread. The mixer plays silence until the first chunk arrives.
+     */
+    Stream open(String id, String resourcePath) {
+        Stream stream = new Stream(id, resourcePath);
+        pending.add(stream);
+        ensureThread();
+        LockSupport.unpark(thread);
+        return stream;
+    }
+
+    synchronized void close() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private synchronized void ensureThread() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::runLoop, "AudioStreamer");
+        thread.setDaemon(true);
+        // ต่ำกว่า mixer แต่ต้องเติม ring ทันก่อน mixer อ่านหมด
+        thread.setPriority(Thread.NORM_PRIORITY + 2);
+        thread.start();
+    }
+
+    private void runLoop() {
+        byte[] chunk = new byte[CHUNK_FRAMES * 4];
+        while (running) {
+            Stream added;
+            while ((added = pending.poll()) != null) {
+                active.add(added);
+            }
+            boolean worked = false;
+            for (int i = active.size() - 1; i >= 0; i--) {
+                Stream stream = active.get(i);
+                if (stream.closed) {
+                    stream.closeInput();
+                    active.remove(i);
+                    continue;
+                }
+                worked |= stream.fill(chunk);
+            }
+            if (!worked) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        for (Stream stream : active) {
+            stream.closeInput();
+        }
+        active.clear();
+    }
+
+    /**
+     * One streamed track. {@code writeFrame} is advanced by the streamer thread only, {@code readFrame}
+     * by the mixer thread only.
+     */
+    static final class Stream {
+        private static final int MASK = RING_FRAMES - 1;
+
+        final String id;
+        private final String resourcePath;
+        private final short[] ring = new short[RING_FRAMES * 2];
+        private final CompletableFuture<Boolean> buffered = new CompletableFuture<>();
+        private volatile long writeFrame;
+        private volatile long readFrame;
+        private volatile boolean closed;
+        private volatile boolean failed;
+        private volatile long underruns;
+        private AudioInputStream input;
+        // รูปแบบของไฟล์ที่เปิดอยู่ และสถานะ resample ที่ต่อข้าม chunk (รวมถึงตอนวนกลับต้นไฟล์)
+        private int channels = 2;
+        private double step = 1.0;
+        private double phase;
+        private short prevLeft;
+        private short prevRight;
+
+        private Stream(String id, String resourcePath) {
+            this.id = id;
+            this.resourcePath = resourcePath;
+        }
+
+        /**
+         * Frames ready for the mixer.
+         */
+        int available() {
+            return (int) (writeFrame - readFrame);
+        }
+
+        /**
+         * Copies up to {@code frames} frames into {@code out} (interleaved stereo) and returns how many were
+         * ready. Mixer thread only; a short read after playback started counts as an underrun.
+         */
+        int read(short[] out, int frames) {
+            long read = readFrame;
+            int n = Math.min(frames, (int) (writeFrame - read));
+            for (int i = 0; i < n; i++) {
+                int slot = (int) ((read + i) & MASK) * 2;
+                out[i * 2] = ring[slot];
+                out[i * 2 + 1] = ring[slot + 1];
+            }
+            if (n < frames && read > 0 && !failed) {
+                underruns++;
+            }
+            readFrame = read + n;
+            return n;
+        }
+
+        long getUnderruns() {
+            return underruns;
+        }
+
+        /**
+         * Completes with true once the first chunk is in the ring, false if the stream failed or was
+         * closed before that.
+         */
+        CompletableFuture<Boolean> buffered() {
+            return buffered;
+        }
+
+        boolean hasFailed() {
+            return failed;
+        }
+
+        int sizeBytes() {
+            return ring.length * 2;
+        }
+
+        /**
+         * Lets the streamer drop this stream and close its file.
+         */
+        void close() {
+            closed = true;
+            buffered.complete(false);
+        }
+
+        // ---- streamer thread ----
+
+        private boolean fill(byte[] chunk) {
+            if (failed) {
+                return false;
+            }
+            boolean worked = false;
+            while (RING_FRAMES - (int) (writeFrame - readFrame) >= CHUNK_FRAMES && !closed) {
+                int sourceFrames = readChunk(chunk);
+                if (sourceFrames <= 0) {
+                    return worked;
+                }
+                if (writeConverted(chunk, sourceFrames) > 0) {
+                    buffered.complete(true);
+                }
+                worked = true;
+            }
+            return worked;
+        }
+
+        /**
+         * Writes {@code sourceFrames} frames of 16 bit little-endian PCM from {@code chunk} into the ring
+         * as stereo at the mixer rate. The fractional read position and the last source frame carry over
+         * to the next chunk, so chunk boundaries and loop points interpolate like the rest of the track.
+         * At most {@link #CHUNK_FRAMES} frames are written (see {@link #maxSourceFrames}).
+         */
+        private int writeConverted(byte[] chunk, int sourceFrames) {
+            int frameBytes = channels * 2;
+            int last = sourceFrames - 1;
+            long write = writeFrame;
+            int written = 0;
+            double pos = phase;
+            while (pos <= last) {
+                int i = (int) Math.floor(pos);
+                double t = pos - i;
+                int left;
+                int right;
+                if (i < 0) {
+                    left = prevLeft;
+                    right = prevRight;
+                } else {
+                    left = sample(chunk, i * frameBytes);
+                    right = channels > 1 ? sample(chunk, i * frameBytes + 2) : left;
+                }
+                if (t > 0) {
+                    int next = (i + 1) * frameBytes;
+                    int nextLeft = sample(chunk, next);
+                    int nextRight = channels > 1 ? sample(chunk, next + 2) : nextLeft;
+                    left = (int) Math.round(left * (1 - t) + nextLeft * t);
+                    right = (int) Math.round(right * (1 - t) + nextRight * t);
+                }
+                int slot = (int) ((write + written) & MASK) * 2;
+                ring[slot] = (short) left;
+                ring[slot + 1] = (short) right;
+                written++;
+                pos += step;
+            }
+            phase = pos - sourceFrames;
+            prevLeft = sample(chunk, last * frameBytes);
+            prevRight = channels > 1 ? sample(chunk, last * frameBytes + 2) : prevLeft;
+            writeFrame = write + written;
+            return written;
+        }
+
+        private static short sample(byte[] chunk, int offset) {
+            return (short) ((chunk[offset] & 0xFF) | (chunk[offset + 1] << 8));
+        }
+
+        /**
+         * Source frames per read such that one chunk never converts to more than {@link #CHUNK_FRAMES}
+         * mixer frames (upsampling writes about {@code 1 / step} frames per source frame).
+         */
+        private int maxSourceFrames(byte[] chunk) {
+            int byBuffer = chunk.length / (channels * 2);
+            int byRing = (int) Math.floor((CHUNK_FRAMES - 1) * step);
+            return Math.max(1, Math.min(byBuffer, byRing));
+        }
+
+        /**
+         * Reads one chunk, reopening the file at the end of the track. Returns 0 (and marks the stream
+         * failed) when the file cannot be read or is empty.
+         */
+        private int readChunk(byte[] chunk) {
+            try {
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    if (input == null) {
+                        input = openInput();
+                    }
+                    int frameBytes = channels * 2;
+                    int bytes = input.readNBytes(chunk, 0, maxSourceFrames(chunk) * frameBytes);
+                    int frames = bytes / frameBytes;
+                    if (frames > 0) {
+                        return frames;
+                    }
+                    // จบไฟล์: เปิดใหม่แล้วอ่านต่อทันที ให้ loop ต่อเนื่อง
+                    closeInput();
+                }
+                throw new IOException("no audio data");
+            } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+                failed = true;
+                buffered.complete(false);
+                closeInput();
+                System.err.println("Audio stream failed for " + id + ": " + e.getMessage());
+                return 0;
+            }
+        }
+
+        private AudioInputStream openInput() throws IOException, UnsupportedAudioFileException {
+            URL url = ResourceLoader.getResourceUrl(resourcePath);
+            AudioInputStream source = url != null
+                    ? AudioSystem.getAudioInputStream(url)
+                    : AudioSystem.getAudioInputStream(new java.io.File(resourcePath));
+            AudioFormat in = source.getFormat();
+            // มากกว่า 2 channel ใช้แค่สองตัวแรก เหมือน Pcm.decode
+            int sourceChannels = Math.max(1, in.getChannels());
+            AudioFormat pcm16 = new AudioFormat(in.getSampleRate(), 16, sourceChannels, true, false);
+            AudioInputStream converted = source;
+            if (!in.matches(pcm16)) {
+                try {
+                    converted = AudioSystem.getAudioInputStream(pcm16, source);
+                } catch (IllegalArgumentException e) {
+                    source.close();
+                    throw new IOException("unsupported audio format " + in, e);
+                }
+            }
+            float rate = in.getSampleRate();
+            channels = sourceChannels;
+            step = rate > 0 && Math.abs(rate - AudioMixer.SAMPLE_RATE) > 1f ? rate / AudioMixer.SAMPLE_RATE : 1.0;
+            return converted;
+        }
+
+        private void closeInput() {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException ignored) {
+                }
+                input = null;
+            }
+        }
+    }
+}
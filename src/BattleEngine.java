@@ -0,0 +1,193 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Combat rules shared by {@link BattleScreen} and {@link BattleSimulator}: battle point economy,
+ * skills, meditate, enemy attacks and victory rewards. Works only on {@link Stats}, skill data and the
+ * combatant lists, keeps no state and does not touch audio, input or drawing, so the same rules can be
+ * run headless millions of times.
+ * <p>
+ * Loops are index based and nothing is allocated per action except the guard modifier.
+ */
+final class BattleEngine {
+    static final int BATTLE_START_BP = 1;
+    static final int TURN_START_BP = 1;
+    static final int MEDITATE_BP = 2;
+    static final double SKILL_BP_REGEN = 0.08;
+    static final int ENEMY_ROLL_MIN = -2;
+    static final int ENEMY_ROLL_SPAN = 5;
+    // ผลของ useSkill เมื่อ BP ไม่พอ (ไม่เสียเทิร์น)
+    static final int NOT_ENOUGH_BP = -1;
+
+    private BattleEngine() {
+    }
+
+    /**
+     * Party member state at the start of a battle: no leftover guard, one BP.
+     */
+    static void preparePartyMember(Stats stats) {
+        stats.clearTemporaryModifiers();
+        stats.setCurrentBattlePoints(BATTLE_START_BP);
+    }
+
+    static void prepareEnemy(Stats stats) {
+        stats.setCurrentHp(stats.getMaxHp());
+    }
+
+    /**
+     * Once per player turn, before the player picks an action (also for knocked out members).
+     */
+    static void beginTurn(Stats stats) {
+        stats.restoreBattlePoints(TURN_START_BP);
+    }
+
+    static void meditate(Stats stats) {
+        stats.restoreBattlePoints(MEDITATE_BP);
+    }
+
+    static boolean isGuard(SkillCatalog.SkillDefinition skill) {
+        return skill != null && "guard".equals(skill.getId());
+    }
+
+    static int skillLevel(PlayerSkills progression, SkillCatalog.SkillDefinition skill) {
+        if (progression == null) {
+            return 1;
+        }
+        progression.ensureSkill(skill.getId(), 1);
+        return progression.getLevel(skill);
+    }
+
+    static int skillDamage(Stats user, int power, Stats target) {
+        return Math.max(1, user.getTotalValue(Stats.StatType.STRENGTH) + power
+                - target.getTotalValue(Stats.StatType.DEFENSE));
+    }
+
+    /**
+     * Spends the skill's BP and resolves it: guard raises the user's defense until the end of the enemy
+     * turn, every other skill hits {@code target}. A resolved skill regenerates a share of the user's BP.
+     *
+     * @param target enemy stats, or null when no enemy is left standing
+     * @return damage dealt (0 for guard or no target), or {@link #NOT_ENOUGH_BP} when nothing happened
+     */
+    static int useSkill(Stats user, SkillCatalog.SkillDefinition skill, int level, Stats target) {
+        if (!user.spendBattlePoints(Math.max(0, skill.getBattleCost()))) {
+            return NOT_ENOUGH_BP;
+        }
+        int power = skill.computePower(level);
+        int damage = 0;
+        if (isGuard(skill)) {
+            user.applyTemporaryModifier(Collections.singletonMap(Stats.StatType.DEFENSE, power));
+        } else if (target != null) {
+            damage = skillDamage(user, power, target);
+            target.setCurrentHp(Math.max(0, target.getCurrentHp() - damage));
+        }
+        user.regenerateBattlePoints(SKILL_BP_REGEN);
+        return damage;
+    }
+
+    /**
+     * One enemy attack: strength plus a roll in [-2, 3] against the target's defense, at least 1.
+     */
+    static int enemyAttack(Stats attacker, Stats target, Random rng) {
+        int roll = (int) Math.round(ENEMY_ROLL_MIN + rng.nextDouble() * ENEMY_ROLL_SPAN);
+        int damage = Math.max(1, attacker.getTotalValue(Stats.StatType.STRENGTH) + roll
+                - target.getTotalValue(Stats.StatType.DEFENSE));
+        target.takeDamage(damage);
+        return damage;
+    }
+
+    /**
+     * Guard and other temporary modifiers last until the enemies have acted.
+     */
+    static void endEnemyTurn(List<? extends Entity> party) {
+        if (party == null) {
+            return;
+        }
+        for (int i = 0; i < party.size(); i++) {
+            Entity member = party.get(i);
+            if (member != null) {
+                member.stats.clearTemporaryModifiers();
+            }
+        }
+    }
+
+    static boolean isAlive(Entity entity) {
+        return entity != null && entity.stats.getCurrentHp() > 0;
+    }
+
+    static int firstAlive(List<? extends Entity> side) {
+        if (side == null) {
+            return -1;
+        }
+        for (int i = 0; i < side.size(); i++) {
+            if (isAlive(side.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int aliveCount(List<? extends Entity> side) {
+        int count = 0;
+        if (side != null) {
+            for (int i = 0; i < side.size(); i++) {
+                if (isAlive(side.get(i))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    static boolean allDown(List<? extends Entity> side) {
+        return firstAlive(side) < 0;
+    }
+
+    /**
+     * Index of a uniformly chosen living member, or -1. Draws exactly one {@code nextInt} when anyone is
+     * alive.
+     */
+    static int pickRandomAlive(List<? extends Entity> side, Random rng) {
+        int alive = aliveCount(side);
+        if (alive == 0) {
+            return -1;
+        }
+        int pick = rng.nextInt(alive);
+        for (int i = 0; i < side.size(); i++) {
+            if (isAlive(side.get(i)) && pick-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gold, essence and per-member experience for defeating {@code enemies}.
+     */
+    static void computeRewards(List<Enemy> enemies, Rewards out) {
+        out.gold = 0;
+        out.essence = 0;
+        out.exp = 0;
+        if (enemies == null) {
+            return;
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy e = enemies.get(i);
+            if (e == null || e.stats == null) {
+                continue;
+            }
+            int level = Math.max(1, e.stats.getLevel());
+            int maxHp = Math.max(20, e.stats.getMaxHp());
+            out.gold += 8 + level * 5 + maxHp / 12;
+            out.essence += 4 + level * 3;
+            out.exp += 5 + level * 10;
+        }
+    }
+
+    static final class Rewards {
+        int gold;
+        int essence;
+        int exp;
+    }
+}
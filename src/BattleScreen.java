@@ -13,7 +13,9 @@ public class BattleScreen {
     final Map<String, Sprite> backSpriteCache = new HashMap<>();
     private final Deque<EnemyAction> enemyActionQueue = new ArrayDeque<>();
     private GamePanel gp;
+    private final Random rng;
     private Sprite backgroundSprite;
+    private AssetCache.Handle<BufferedImage> backgroundHandle;
     private Sprite nameBannerSprite;
     private List<Player> party;
     private List<Enemy> enemy;
@@ -40,6 +42,7 @@ public class BattleScreen {
 
     public BattleScreen(GamePanel gp) {
         this.gp = gp;
+        this.rng = gp != null ? gp.random.stream(GameRandom.Stream.BATTLE) : new Random();
         skills = new ArrayList<>(SkillCatalog.all());
     }
 
@@ -80,7 +83,13 @@ public class BattleScreen {
             path = "boss";
         }
         try {
-            backgroundSprite = SpriteLoader.loadSheet("resources/battlebg/" + path + ".png", 640, 360);
+            // ปักภาพพื้นหลังไว้ใน cache ตลอดการต่อสู้ ปล่อยภาพของครั้งก่อน
+            AssetCache.Handle<BufferedImage> background = ResourceLoader.acquireImage("resources/battlebg/" + path + ".png");
+            if (backgroundHandle != null) {
+                backgroundHandle.close();
+            }
+            backgroundHandle = background;
+            backgroundSprite = SpriteLoader.sheetOf(background.get(), 640, 360);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -106,13 +115,11 @@ public class BattleScreen {
         for (Player member : this.party) {
             if (member == null) continue;
             member.initializeDefaultSkills();
-            Stats stats = member.getStats();
-            stats.clearTemporaryModifiers();
-            stats.setCurrentBattlePoints(1);
+            BattleEngine.preparePartyMember(member.getStats());
         }
 
         for (Enemy e : this.enemy) {
-            if (e != null) e.stats.setCurrentHp(e.stats.getMaxHp());
+            if (e != null) BattleEngine.prepareEnemy(e.stats);
         }
 
         refocusEnemyIndex();
@@ -205,8 +212,7 @@ public class BattleScreen {
         if (currentPlayerIndex < party.size() && waitingForInput) {
             Player currentPlayer = party.get(currentPlayerIndex);
             if (preparedTurnIndex != currentPlayerIndex) {
-                Stats currentStats = currentPlayer.getStats();
-                currentStats.restoreBattlePoints(1);
+                BattleEngine.beginTurn(currentPlayer.getStats());
                 preparedTurnIndex = currentPlayerIndex;
             }
             if (currentPlayer.getStats().getCurrentHp() <= 0) {
@@ -228,9 +234,8 @@ public class BattleScreen {
                             break;
 
                         case 1: { // Meditate -> restore more BP then end turn
-                            Stats stats = currentPlayer.getStats();
-                            stats.restoreBattlePoints(2);
-                            lastAction = currentPlayer.name + " meditates and restores " + "2" + " BP!";
+                            BattleEngine.meditate(currentPlayer.getStats());
+                            lastAction = currentPlayer.name + " meditates and restores " + BattleEngine.MEDITATE_BP + " BP!";
                             if (gp != null)
                                 gp.playSfx("guard"); // ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã‚Â ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬ÃƒÂ¢Ã¢â‚¬Å¾Ã‚Â¢ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã‚Â¦ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â°ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€¦Ã‚Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚ÂªÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚ÂµÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¡ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€¦Ã‚Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚ÂÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â´ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¡ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚ÂÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡Ãƒâ€šÃ‚Â¬ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€šÃ‚ÂÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€¦Ã‚Â¾ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚ÂÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¹ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã‚Â¹ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â­ÃƒÆ’Ã†â€™Ãƒâ€ Ã¢â‚¬â„¢ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â ÃƒÆ’Ã†â€™ÃƒÂ¢Ã¢â€šÂ¬Ã…Â¡ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¸ÃƒÆ’Ã†â€™Ãƒâ€šÃ‚Â¢ÃƒÆ’Ã‚Â¢ÃƒÂ¢Ã¢â‚¬Å¡Ã‚Â¬Ãƒâ€¦Ã‚Â¾ÃƒÆ’Ã¢â‚¬Å¡Ãƒâ€šÃ‚Â¢
                             preparedTurnIndex = -1;
@@ -291,54 +296,34 @@ public class BattleScreen {
         if (player == null || skill == null) {
             return ActionResolution.NO_ACTION;
         }
-        PlayerSkills progression = player.getSkillProgression();
-        if (progression != null) {
-            progression.ensureSkill(skill.getId(), 1);
-        }
-        int level = progression != null ? progression.getLevel(skill) : 1;
+        int level = BattleEngine.skillLevel(player.getSkillProgression(), skill);
         Stats stats = player.getStats();
-        int bpCost = Math.max(0, skill.getBattleCost());
-        if (!stats.spendBattlePoints(bpCost)) {
+        int targetIndex = BattleEngine.firstAlive(enemy);
+        Enemy target = targetIndex >= 0 ? enemy.get(targetIndex) : null;
+        int damage = BattleEngine.useSkill(stats, skill, level, target != null ? target.stats : null);
+        if (damage == BattleEngine.NOT_ENOUGH_BP) {
             lastAction = player.name + " lacks BP for " + skill.getName() + "!";
             if (gp != null) gp.playSfx("bp_fail");
             waitingForInput = true;
             return ActionResolution.NO_ACTION;
         }
 
-        int effectValue = skill.computePower(level);
-        if ("guard".equals(skill.getId())) {
-            stats.applyTemporaryModifier(Collections.singletonMap(Stats.StatType.DEFENSE, effectValue));
-            lastAction = player.name + " braces for impact (DEF +" + effectValue + ", Lv" + level + " " + skill.getName() + ")!";
+        if (BattleEngine.isGuard(skill)) {
+            lastAction = player.name + " braces for impact (DEF +" + skill.computePower(level) + ", Lv" + level + " " + skill.getName() + ")!";
             if (gp != null) gp.playSfx("guard");
-        } else {
-            Enemy target = null;
-            if (enemy != null) {
-                for (Enemy e : enemy) {
-                    if (e != null && e.stats.getCurrentHp() > 0) {
-                        target = e;
-                        break;
-                    }
-                }
-            }
-            if (target != null) {
-                int strength = stats.getTotalValue(Stats.StatType.STRENGTH);
-                int damage = Math.max(1, strength + effectValue - target.stats.getTotalValue(Stats.StatType.DEFENSE));
-                target.stats.setCurrentHp(Math.max(0, target.stats.getCurrentHp() - damage));
-                lastAction = player.name + " used " + skill.getName() + " Lv" + level + " on " + target.name + " for " + damage + " damage!";
-                if (gp != null) {
-                    gp.playSfx("skill_strike");
-                }
-            } else {
-                lastAction = player.name + " used " + skill.getName() + " but no valid target.";
+        } else if (target != null) {
+            lastAction = player.name + " used " + skill.getName() + " Lv" + level + " on " + target.name + " for " + damage + " damage!";
+            if (gp != null) {
+                gp.playSfx("skill_strike");
             }
+        } else {
+            lastAction = player.name + " used " + skill.getName() + " but no valid target.";
         }
 
-        stats.regenerateBattlePoints(0.08);
         preparedTurnIndex = -1;
         waitingForInput = false;
 
-        long alive = (enemy != null ? enemy.stream().filter(e -> e != null && e.stats.getCurrentHp() > 0).count()
-                : 0);
+        int alive = BattleEngine.aliveCount(enemy);
         System.out.println(lastAction + " (Enemies alive: " + alive + ")");
         refocusEnemyIndex();
         if (alive == 0) {
@@ -354,49 +339,22 @@ public class BattleScreen {
             return;
         }
         victoryProcessed = true;
-        int goldReward = 0;
-        int essenceReward = 0;
-        int xpReward = 0;
-        List<Player> party = gp.party;
-        if (enemy != null) {
-            for (Enemy e : enemy) {
-                if (e == null || e.stats == null) {
-                    continue;
-                }
-                Stats es = e.stats;
-                int level = Math.max(1, es.getLevel());
-                int maxHp = Math.max(20, es.getMaxHp());
-                goldReward += 8 + level * 5 + maxHp / 12;
-                essenceReward += 4 + level * 3;
-                xpReward += 5 + level * 10;
-            }
-        }
+        BattleEngine.Rewards rewards = new BattleEngine.Rewards();
+        BattleEngine.computeRewards(enemy, rewards);
         if (gp != null) {
-            gp.onBattleVictory(goldReward, essenceReward);
-            for (Player x : party) {
-                x.stats.gainExp(xpReward);
+            gp.onBattleVictory(rewards.gold, rewards.essence);
+            for (Player x : gp.party) {
+                x.stats.gainExp(rewards.exp);
             }
         }
     }
 
     private boolean areAllEnemiesDead() {
-        if (enemy == null || enemy.isEmpty()) return true;
-        for (Enemy e : enemy) {
-            if (e != null && e.stats.getCurrentHp() > 0) return false;
-        }
-        return true;
-    }
-
-    private boolean isAnyPlayerAlive() {
-        if (party == null || party.isEmpty()) return false;
-        for (Player p : party) {
-            if (p != null && p.getStats().getCurrentHp() > 0) return true;
-        }
-        return false;
+        return enemy == null || enemy.isEmpty() || BattleEngine.allDown(enemy);
     }
 
     private boolean isPartyWiped() {
-        return !isAnyPlayerAlive();
+        return party == null || party.isEmpty() || BattleEngine.allDown(party);
     }
 
     void performEnemyTurn() {
@@ -458,11 +416,7 @@ public class BattleScreen {
             return;
         }
         Stats targetStats = target.getStats();
-        int defense = targetStats.getTotalValue(Stats.StatType.DEFENSE);
-        int roll = (int) Math.round(-2 + Math.random() * 5);
-        int raw = attacker.stats.getTotalValue(Stats.StatType.STRENGTH) + roll - defense;
-        int damage = Math.max(1, raw);
-        targetStats.takeDamage(damage);
+        int damage = BattleEngine.enemyAttack(attacker.stats, targetStats, rng);
         lastAction = attacker.name + " attacks " + target.name + " for " + damage + "!";
         if (targetStats.getCurrentHp() <= 0) {
             lastAction += " " + target.name + " is knocked out!";
@@ -478,13 +432,7 @@ public class BattleScreen {
         enemyTurnActive = false;
         enemyActionTimer = 0.0;
         enemyActionQueue.clear();
-        if (party != null) {
-            for (Player p : party) {
-                if (p != null) {
-                    p.getStats().clearTemporaryModifiers();
-                }
-            }
-        }
+        BattleEngine.endEnemyTurn(party);
         currentPlayerIndex = 0;
         preparedTurnIndex = -1;
         waitingForInput = true;
@@ -492,19 +440,8 @@ public class BattleScreen {
     }
 
     private Player selectRandomAlivePlayer() {
-        List<Player> alive = new ArrayList<>();
-        if (party != null) {
-            for (Player p : party) {
-                if (p != null && p.getStats().getCurrentHp() > 0) {
-                    alive.add(p);
-                }
-            }
-        }
-        if (alive.isEmpty()) {
-            return null;
-        }
-        int index = (int) (Math.random() * alive.size());
-        return alive.get(index);
+        int index = BattleEngine.pickRandomAlive(party, rng);
+        return index >= 0 ? party.get(index) : null;
     }
 
     private void refocusEnemyIndex() {
@@ -512,16 +449,7 @@ public class BattleScreen {
     }
 
     private int findFirstAliveEnemyIndex() {
-        if (enemy == null || enemy.isEmpty()) {
-            return -1;
-        }
-        for (int i = 0; i < enemy.size(); i++) {
-            Enemy candidate = enemy.get(i);
-            if (candidate != null && candidate.stats.getCurrentHp() > 0) {
-                return i;
-            }
-        }
-        return -1;
+        return BattleEngine.firstAlive(enemy);
     }
 
     private Enemy resolveCurrentEnemy() {
@@ -0,0 +1,406 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo balance runner: plays random encounters from {@link Enemy.PartyGenerator} against the
+ * starting party leveled to each party level, using the {@link BattleEngine} rules without any screen,
+ * timers or audio, and reports win rates, round counts and damage distributions per level and zone.
+ * <pre>
+ * java -cp ... BattleSimulator [--fights=200000] [--levels=1-10] [--zones=1,2,4] [--skill-level=1]
+ *                             [--seed=1] [--no-ambush] [--threads=N] [--histogram]
+ * </pre>
+ * Fights are split into fixed blocks of {@link #BLOCK_FIGHTS}, each with its own seed, and run on a
+ * fork-join pool; the totals for a seed are the same whatever the thread count.
+ * <p>
+ * The party plays a greedy policy: the strongest damage skill it can afford on the first enemy standing,
+ * otherwise meditate. Random encounters in the game always start with the enemies' turn, as here unless
+ * {@code --no-ambush}.
+ */
+final class BattleSimulator {
+    static final int BLOCK_FIGHTS = 4096;
+    // กันลูปไม่จบ (ในกติกาปัจจุบันดาเมจขั้นต่ำ 1 จึงไม่ควรถึง)
+    static final int MAX_ROUNDS = 200;
+    static final int MAX_HIT = 255;
+    private static final String[] PARTY_NAMES = {"Bluu", "Souri", "Bob"};
+
+    private final Stats[] partyTemplate;
+    private final int partyLevel;
+    private final int zone;
+    private final int skillLevel;
+    private final boolean ambush;
+    private final long seed;
+
+    BattleSimulator(int partyLevel, int zone, int skillLevel, boolean ambush, long seed) {
+        this.partyLevel = Math.max(1, partyLevel);
+        this.zone = zone;
+        this.skillLevel = Math.max(1, skillLevel);
+        this.ambush = ambush;
+        this.seed = seed;
+        this.partyTemplate = createPartyTemplate(this.partyLevel);
+        // seed template ของศัตรูก่อนแตก thread (Registry เป็น HashMap ธรรมดา)
+        Enemy.Registry.seedDefaultsIfEmpty();
+    }
+
+    private static Stats[] createPartyTemplate(int level) {
+        Stats[] stats = new Stats[PARTY_NAMES.length];
+        for (int i = 0; i < PARTY_NAMES.length; i++) {
+            Stats s = Player.createSample(PARTY_NAMES[i], 0, 0).getStats().copy();
+            while (s.getLevel() < level) {
+                s.gainExp(10);
+            }
+            s.setExp(0);
+            s.fullHeal();
+            s.fullRestoreBattlePoints();
+            stats[i] = s;
+        }
+        return stats;
+    }
+
+    Tally run(long fights, ForkJoinPool pool) {
+        long blocks = (Math.max(0, fights) + BLOCK_FIGHTS - 1) / BLOCK_FIGHTS;
+        return pool.invoke(new BlockTask(0, blocks, fights));
+    }
+
+    /**
+     * Runs fights {@code [block * BLOCK_FIGHTS, ...)} of this scenario on the calling thread.
+     */
+    private Tally runBlock(long block, long totalFights) {
+        long first = block * BLOCK_FIGHTS;
+        long count = Math.min(BLOCK_FIGHTS, totalFights - first);
+        Random rng = new Random(GameRandom.mix(seed + partyLevel * 0x1_0000L + zone * 0x100L + block * GameRandom.mix(block + 1)));
+        Enemy.PartyGenerator generator = new Enemy.PartyGenerator(rng);
+        List<Player> party = new ArrayList<>(partyTemplate.length);
+        for (int i = 0; i < partyTemplate.length; i++) {
+            party.add(new Player(PARTY_NAMES[i], null, 0, 0));
+        }
+        List<SkillCatalog.SkillDefinition> attacks = new ArrayList<>();
+        for (SkillCatalog.SkillDefinition skill : SkillCatalog.all()) {
+            if (!BattleEngine.isGuard(skill)) {
+                attacks.add(skill);
+            }
+        }
+        Tally tally = new Tally();
+        for (long i = 0; i < count; i++) {
+            for (int m = 0; m < party.size(); m++) {
+                party.get(m).getStats().copyFrom(partyTemplate[m]);
+            }
+            fight(party, generator.rollRandomParty(partyLevel, zone), attacks, rng, tally);
+        }
+        return tally;
+    }
+
+    private void fight(List<Player> party, List<Enemy> enemies, List<SkillCatalog.SkillDefinition> attacks,
+                       Random rng, Tally tally) {
+        long partyMaxHp = 0;
+        for (int m = 0; m < party.size(); m++) {
+            Stats stats = party.get(m).getStats();
+            BattleEngine.preparePartyMember(stats);
+            partyMaxHp += stats.getMaxHp();
+        }
+        for (int e = 0; e < enemies.size(); e++) {
+            BattleEngine.prepareEnemy(enemies.get(e).stats);
+        }
+        int rounds = 0;
+        boolean won = false;
+        boolean lost = ambush && enemyTurn(party, enemies, rng, tally);
+        while (!lost && rounds < MAX_ROUNDS) {
+            rounds++;
+            if (playerTurn(party, enemies, attacks, tally)) {
+                won = true;
+                break;
+            }
+            lost = enemyTurn(party, enemies, rng, tally);
+        }
+        long hpLeft = 0;
+        int knockedOut = 0;
+        for (int m = 0; m < party.size(); m++) {
+            int hp = party.get(m).getStats().getCurrentHp();
+            hpLeft += hp;
+            if (hp <= 0) {
+                knockedOut++;
+            }
+        }
+        tally.record(won, lost, rounds, enemies.size(), partyMaxHp - hpLeft, partyMaxHp, knockedOut);
+    }
+
+    /**
+     * @return true when the enemies are all down
+     */
+    private boolean playerTurn(List<Player> party, List<Enemy> enemies, List<SkillCatalog.SkillDefinition> attacks,
+                               Tally tally) {
+        for (int m = 0; m < party.size(); m++) {
+            Player member = party.get(m);
+            Stats stats = member.getStats();
+            BattleEngine.beginTurn(stats);
+            if (stats.getCurrentHp() <= 0) {
+                continue;
+            }
+            SkillCatalog.SkillDefinition best = null;
+            int bestLevel = 1;
+            int bestPower = Integer.MIN_VALUE;
+            for (int s = 0; s < attacks.size(); s++) {
+                SkillCatalog.SkillDefinition skill = attacks.get(s);
+                int level = Math.min(skill.getMaxLevel(), skillLevel);
+                int power = skill.computePower(level);
+                if (skill.getBattleCost() <= stats.getCurrentBattlePoints() && power > bestPower) {
+                    best = skill;
+                    bestLevel = level;
+                    bestPower = power;
+                }
+            }
+            if (best == null) {
+                BattleEngine.meditate(stats);
+                tally.meditations++;
+                continue;
+            }
+            int target = BattleEngine.firstAlive(enemies);
+            int damage = BattleEngine.useSkill(stats, best, bestLevel, enemies.get(target).stats);
+            tally.playerHits[Math.min(MAX_HIT, damage)]++;
+            if (BattleEngine.allDown(enemies)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true when the party is wiped out
+     */
+    private boolean enemyTurn(List<Player> party, List<Enemy> enemies, Random rng, Tally tally) {
+        for (int e = 0; e < enemies.size(); e++) {
+            Enemy attacker = enemies.get(e);
+            if (!BattleEngine.isAlive(attacker)) {
+                continue;
+            }
+            int target = BattleEngine.pickRandomAlive(party, rng);
+            if (target < 0) {
+                return true;
+            }
+            int damage = BattleEngine.enemyAttack(attacker.stats, party.get(target).getStats(), rng);
+            tally.enemyHits[Math.min(MAX_HIT, damage)]++;
+        }
+        if (BattleEngine.allDown(party)) {
+            return true;
+        }
+        BattleEngine.endEnemyTurn(party);
+        return false;
+    }
+
+    private final class BlockTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final long from;
+        private final long to;
+        private final long totalFights;
+
+        BlockTask(long from, long to, long totalFights) {
+            this.from = from;
+            this.to = to;
+            this.totalFights = totalFights;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= 1) {
+                return from < to ? runBlock(from, totalFights) : new Tally();
+            }
+            long mid = (from + to) >>> 1;
+            BlockTask right = new BlockTask(mid, to, totalFights);
+            right.fork();
+            Tally left = new BlockTask(from, mid, totalFights).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Counters for one scenario; histograms are indexed by value (rounds, damage per hit, percent of
+     * party HP lost).
+     */
+    static final class Tally {
+        long fights;
+        long wins;
+        long losses;
+        long timeouts;
+        long enemiesFaced;
+        long knockouts;
+        long meditations;
+        final long[] rounds = new long[MAX_ROUNDS + 1];
+        final long[] playerHits = new long[MAX_HIT + 1];
+        final long[] enemyHits = new long[MAX_HIT + 1];
+        final long[] hpLostPercent = new long[101];
+
+        void record(boolean won, boolean lost, int roundCount, int enemyCount, long hpLost, long hpMax,
+                    int knockedOut) {
+            fights++;
+            if (won) {
+                wins++;
+            } else if (lost) {
+                losses++;
+            } else {
+                timeouts++;
+            }
+            rounds[Math.min(MAX_ROUNDS, roundCount)]++;
+            enemiesFaced += enemyCount;
+            knockouts += knockedOut;
+            hpLostPercent[(int) Math.min(100, hpMax > 0 ? hpLost * 100 / hpMax : 0)]++;
+        }
+
+        void merge(Tally other) {
+            fights += other.fights;
+            wins += other.wins;
+            losses += other.losses;
+            timeouts += other.timeouts;
+            enemiesFaced += other.enemiesFaced;
+            knockouts += other.knockouts;
+            meditations += other.meditations;
+            add(rounds, other.rounds);
+            add(playerHits, other.playerHits);
+            add(enemyHits, other.enemyHits);
+            add(hpLostPercent, other.hpLostPercent);
+        }
+
+        double winRate() {
+            return fights > 0 ? wins / (double) fights : 0.0;
+        }
+
+        private static void add(long[] into, long[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+
+        static double mean(long[] histogram) {
+            long n = 0;
+            double sum = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                n += histogram[i];
+                sum += i * (double) histogram[i];
+            }
+            return n > 0 ? sum / n : 0.0;
+        }
+
+        static int percentile(long[] histogram, double p) {
+            long n = 0;
+            for (long count : histogram) {
+                n += count;
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= Math.max(1, rank)) {
+                    return i;
+                }
+            }
+            return histogram.length - 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        long fights = 200_000;
+        int minLevel = 1;
+        int maxLevel = 10;
+        int[] zones = {1, 2, 4};
+        int skillLevel = 1;
+        long seed = 1L;
+        boolean ambush = true;
+        boolean histogram = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.startsWith("--fights=")) {
+                fights = Long.parseLong(arg.substring("--fights=".length()));
+            } else if (arg.startsWith("--levels=")) {
+                String[] range = arg.substring("--levels=".length()).split("-");
+                minLevel = Integer.parseInt(range[0]);
+                maxLevel = Integer.parseInt(range[range.length - 1]);
+            } else if (arg.startsWith("--zones=")) {
+                String[] parts = arg.substring("--zones=".length()).split(",");
+                zones = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    zones[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else if (arg.startsWith("--skill-level=")) {
+                skillLevel = Integer.parseInt(arg.substring("--skill-level=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Math.max(1, Integer.parseInt(arg.substring("--threads=".length())));
+            } else if (arg.equals("--no-ambush")) {
+                ambush = false;
+            } else if (arg.equals("--histogram")) {
+                histogram = true;
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        System.out.printf(Locale.ROOT, "%,d fights per scenario, skill level %d, %s, seed %d, %d threads%n",
+                fights, skillLevel, ambush ? "ambush" : "party first", seed, threads);
+        System.out.println("zone lvl    win%  lose%  rounds(avg p50 p90)  party hit(avg p10 p90)  enemy hit(avg p10 p90)  hp lost%(avg p90)  KO/fight  fights/s");
+        long start = System.nanoTime();
+        long total = 0;
+        for (int zone : zones) {
+            for (int level = minLevel; level <= maxLevel; level++) {
+                BattleSimulator simulator = new BattleSimulator(level, zone, skillLevel, ambush, seed);
+                long t0 = System.nanoTime();
+                Tally t = simulator.run(fights, pool);
+                double seconds = (System.nanoTime() - t0) / 1e9;
+                total += t.fights;
+                System.out.printf(Locale.ROOT,
+                        "%4d %3d  %6.2f %6.2f     %5.2f %3d %3d        %5.1f %3d %3d          %5.1f %3d %3d         %5.1f %3d      %5.2f  %,9.0f%n",
+                        zone, level, 100.0 * t.winRate(), 100.0 * t.losses / Math.max(1, t.fights),
+                        Tally.mean(t.rounds), Tally.percentile(t.rounds, 0.5), Tally.percentile(t.rounds, 0.9),
+                        Tally.mean(t.playerHits), Tally.percentile(t.playerHits, 0.1), Tally.percentile(t.playerHits, 0.9),
+                        Tally.mean(t.enemyHits), Tally.percentile(t.enemyHits, 0.1), Tally.percentile(t.enemyHits, 0.9),
+                        Tally.mean(t.hpLostPercent), Tally.percentile(t.hpLostPercent, 0.9),
+                        t.knockouts / (double) Math.max(1, t.fights), t.fights / seconds);
+                if (histogram) {
+                    printHistogram("enemy hit", t.enemyHits);
+                    printHistogram("party hp lost %", t.hpLostPercent);
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%,d fights in %.1f s (%,.0f fights/s)%n", total, elapsed, total / elapsed);
+        pool.shutdown();
+    }
+
+    private static void printHistogram(String label, long[] histogram) {
+        int last = -1;
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                last = i;
+            }
+        }
+        if (last < 0) {
+            return;
+        }
+        // รวม bucket ให้ไม่เกิน ~25 แถว
+        int width = Math.max(1, (last + 25) / 25);
+        long[] buckets = new long[last / width + 1];
+        long max = 0;
+        for (int i = 0; i <= last; i++) {
+            buckets[i / width] += histogram[i];
+            max = Math.max(max, buckets[i / width]);
+        }
+        System.out.println("    " + label + ":");
+        for (int b = 0; b < buckets.length; b++) {
+            if (buckets[b] > 0) {
+                int bar = (int) Math.round(40.0 * buckets[b] / max);
+                System.out.printf(Locale.ROOT, "    %4d  %-40s %,d%n", b * width, "#".repeat(bar), buckets[b]);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts decoded images into the pixel layout the display uses, so drawing them is a straight blit
+ * instead of a per-pixel conversion from {@code TYPE_4BYTE_ABGR} or indexed PNG data on every
+ * {@code drawImage}. Opaque images become opaque compatible images; anything with alpha keeps it.
+ * <p>
+ * Without a screen (headless) the target is the software pipeline: opaque images become
+ * {@code TYPE_INT_RGB} and translucent ones {@code TYPE_INT_ARGB_PRE}, which blends into the
+ * {@code TYPE_INT_ARGB} back buffer fastest. Indexed images with 1-bit transparency are left alone there,
+ * since Java2D copies them with bitmask loops that beat any blending.
+ * <p>
+ * The mode comes from {@code -Dgame.imageMode} ({@code managed} by default, {@code none} keeps images as
+ * decoded). Managed images are left to Java2D, which caches them in video memory when the destination
+ * is accelerated (the active-rendering {@code VolatileImage} surface).
+ */
+final class CompatibleImages {
+    private static volatile Mode mode = Mode.parse(System.getProperty("game.imageMode"));
+
+    private CompatibleImages() {
+    }
+
+    enum Mode {
+        NONE,
+        MANAGED;
+
+        static Mode parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return MANAGED;
+            }
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "none", "off" -> NONE;
+                case "managed" -> MANAGED;
+                default -> {
+                    System.err.println("Unknown image mode '" + value + "', using managed");
+                    yield MANAGED;
+                }
+            };
+        }
+    }
+
+    static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Applies to images loaded after the call; set it before the first asset is loaded.
+     */
+    static void setMode(Mode newMode) {
+        mode = newMode != null ? newMode : Mode.MANAGED;
+    }
+
+    /**
+     * {@code image} redrawn into a compatible image, or {@code image} itself when it already is one or the
+     * mode is {@link Mode#NONE}.
+     */
+    static BufferedImage toCompatible(BufferedImage image) {
+        if (image == null || mode == Mode.NONE) {
+            return image;
+        }
+        int transparency = image.getColorModel().getTransparency();
+        GraphicsConfiguration config = defaultConfiguration();
+        if (config == null && transparency == Transparency.BITMASK && image.getColorModel() instanceof IndexColorModel) {
+            return image;
+        }
+        if (config != null ? image.getColorModel().equals(config.getColorModel(transparency))
+                : image.getType() == headlessType(transparency)) {
+            return image;
+        }
+        BufferedImage converted = createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+        Graphics2D g = converted.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        converted.setAccelerationPriority(1f);
+        return converted;
+    }
+
+    static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        GraphicsConfiguration config = defaultConfiguration();
+        if (config != null) {
+            return config.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height, headlessType(transparency));
+    }
+
+    private static int headlessType(int transparency) {
+        return transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+    }
+
+    private static GraphicsConfiguration defaultConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        try {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+        } catch (HeadlessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Blit benchmark: draws every PNG under the given directories (sprites, tiles and battle backgrounds
+     * by default) into a 640x360 {@code TYPE_INT_ARGB} buffer, as decoded and after conversion, both 1:1
+     * and scaled the way {@link Sprite#draw} scales frames to entity size.
+     * <pre>
+     * java CompatibleImages [dir ...] [--draws=N]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> dirs = new ArrayList<>();
+        int draws = 2000;
+        for (String arg : args) {
+            if (arg.startsWith("--draws=")) {
+                draws = Integer.parseInt(arg.substring("--draws=".length()));
+            } else {
+                dirs.add(arg);
+            }
+        }
+        if (dirs.isEmpty()) {
+            dirs.add("resources/sprites");
+            dirs.add("resources/tiles");
+            dirs.add("resources/battlebg");
+        }
+        List<BufferedImage> decoded = new ArrayList<>();
+        for (String dir : dirs) {
+            File[] files = new File(dir).listFiles((d, name) -> name.toLowerCase(Locale.ROOT).endsWith(".png"));
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                BufferedImage image = ImageIO.read(file);
+                if (image != null) {
+                    decoded.add(image);
+                }
+            }
+        }
+        if (decoded.isEmpty()) {
+            System.err.println("No images found");
+            return;
+        }
+        List<BufferedImage> converted = new ArrayList<>();
+        long start = System.nanoTime();
+        for (BufferedImage image : decoded) {
+            converted.add(toCompatible(image));
+        }
+        double convertMs = (System.nanoTime() - start) / 1e6;
+        BufferedImage target = new BufferedImage(640, 360, BufferedImage.TYPE_INT_ARGB);
+        System.out.printf(Locale.ROOT, "%d images, converted in %.1f ms (%s)%n", decoded.size(), convertMs,
+                GraphicsEnvironment.isHeadless() ? "headless" : "screen configuration");
+        Map<Integer, Integer> types = new TreeMap<>();
+        for (BufferedImage image : decoded) {
+            types.merge(image.getType(), 1, Integer::sum);
+        }
+        System.out.println("decoded types (BufferedImage.TYPE_*): " + types);
+        for (double scale : new double[]{1.0, 0.5}) {
+            // รอบแรก warm-up ให้ JIT/loops ของ Java2D พร้อมก่อนจับเวลา
+            for (int round = 0; round < 2; round++) {
+                double before = blit(decoded, target, draws, scale);
+                double after = blit(converted, target, draws, scale);
+                if (round == 1) {
+                    System.out.printf(Locale.ROOT, "scale %.1f  as decoded: %8.1f Mpixel/s  compatible: %8.1f Mpixel/s (%.1fx)%n",
+                            scale, before, after, after / before);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a 128x128 (at most) region of each image {@code draws} times through a {@code scale}
+     * transform and returns the throughput in source megapixels per second.
+     */
+    private static double blit(List<BufferedImage> images, BufferedImage target, int draws, double scale) {
+        Graphics2D g = target.createGraphics();
+        long pixels = 0;
+        long start = System.nanoTime();
+        g.scale(scale, scale);
+        try {
+            for (BufferedImage image : images) {
+                int w = Math.min(128, image.getWidth());
+                int h = Math.min(128, image.getHeight());
+                for (int i = 0; i < draws; i++) {
+                    int x = (i * 37) % (target.getWidth() - w + 1);
+                    int y = (i * 53) % (target.getHeight() - h + 1);
+                    g.drawImage(image, x, y, x + w, y + h, 0, 0, w, h, null);
+                }
+                pixels += (long) w * h * draws;
+            }
+        } finally {
+            g.dispose();
+        }
+        return pixels / ((System.nanoTime() - start) / 1e3);
+    }
+}
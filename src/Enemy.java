@@ -163,10 +163,15 @@ public class Enemy extends Entity {
     }
 
     public static final class PartyGenerator {
-        private final Random rng = new Random();
+        private final Random rng;
         private final Map<Integer, List<String>> zonePools = new HashMap<>();
 
         public PartyGenerator() {
+            this(new Random());
+        }
+
+        PartyGenerator(Random rng) {
+            this.rng = rng;
             Registry.seedDefaultsIfEmpty();
             zonePools.put(1, List.of("moodeng"));
             zonePools.put(2, List.of("MoodengVegan"));
@@ -38,4 +38,10 @@ public abstract class Entity implements Serializable {
         if (sprite == null) return;
         sprite.draw(g, x, y, w, h);
     }
+
+    // วาดที่ตำแหน่งที่ระบุ (เช่นตำแหน่ง interpolate ระหว่าง logic step) โดยไม่แตะ state ของ entity
+    void drawAt(Graphics2D g, double px, double py) {
+        if (sprite == null) return;
+        sprite.draw(g, Math.floor(px), Math.floor(py), w, h);
+    }
 }
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Schedules logic steps and rendered frames for the game loop. Logic runs on fixed deadlines derived
+ * from the logic rate; frames are presented at most at the render cap (0 = uncapped). Waiting parks
+ * the thread for the bulk of the gap and yields through the last fraction of a millisecond, because
+ * parkNanos/sleep on Linux routinely overshoot by more than that.
+ * <p>
+ * Not thread-safe: only the game loop thread calls into it.
+ */
+final class FramePacer {
+    // ช่วงสุดท้ายก่อน deadline ใช้ spin-yield แทน park
+    private static final long SPIN_THRESHOLD_NANOS = 500_000L;
+    // ตามหลังเกินนี้ทิ้ง step ที่ค้างไว้ (กัน spiral of death) เหมือน accumulator เดิมที่ clamp 3 step
+    private static final int MAX_CATCH_UP_STEPS = 3;
+    private static final int SAMPLE_COUNT = 240;
+
+    private final long logicStepNanos;
+    private long nextLogicDeadline;
+    private long renderIntervalNanos;
+    private long nextRenderDeadline;
+    private long lastFrameAt;
+
+    private final long[] frameSamples = new long[SAMPLE_COUNT];
+    private final long[] sortScratch = new long[SAMPLE_COUNT];
+    private int sampleIndex;
+    private int sampleSize;
+
+    FramePacer(double logicFps) {
+        this.logicStepNanos = Math.max(1L, Math.round(1_000_000_000.0 / logicFps));
+    }
+
+    void reset(long now) {
+        nextLogicDeadline = now + logicStepNanos;
+        nextRenderDeadline = now;
+        lastFrameAt = 0L;
+        sampleIndex = 0;
+        sampleSize = 0;
+    }
+
+    /**
+     * @param fps maximum frames presented per second; 0 or less presents as often as the loop allows
+     */
+    void setRenderCap(double fps) {
+        renderIntervalNanos = fps > 0 ? Math.round(1_000_000_000.0 / fps) : 0L;
+    }
+
+    double getRenderCap() {
+        return renderIntervalNanos > 0 ? 1_000_000_000.0 / renderIntervalNanos : 0.0;
+    }
+
+    long getLogicStepNanos() {
+        return logicStepNanos;
+    }
+
+    /**
+     * Returns the deadline of the next logic step if it is due at {@code now}, advancing the schedule,
+     * or -1 when no step is due. The returned time is the step's logical timestamp.
+     */
+    long pollLogicStep(long now) {
+        if (now < nextLogicDeadline) {
+            return -1L;
+        }
+        long behind = now - nextLogicDeadline;
+        if (behind >= logicStepNanos * MAX_CATCH_UP_STEPS) {
+            nextLogicDeadline = now - logicStepNanos * (MAX_CATCH_UP_STEPS - 1);
+        }
+        long stepTime = nextLogicDeadline;
+        nextLogicDeadline += logicStepNanos;
+        return stepTime;
+    }
+
+    /**
+     * True when a frame may be presented at {@code now} under the render cap. A true result counts as
+     * a presented frame for the jitter statistics.
+     */
+    boolean pollRenderFrame(long now) {
+        if (renderIntervalNanos > 0) {
+            if (now < nextRenderDeadline) {
+                return false;
+            }
+            nextRenderDeadline += renderIntervalNanos;
+            if (nextRenderDeadline <= now) {
+                // หลุด cadence (เช่น frame ช้า) เริ่มนับใหม่จากตอนนี้แทนการเร่งวาดชดเชย
+                nextRenderDeadline = now + renderIntervalNanos;
+            }
+        }
+        if (lastFrameAt != 0L) {
+            frameSamples[sampleIndex] = now - lastFrameAt;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+            sampleSize = Math.min(SAMPLE_COUNT, sampleSize + 1);
+        }
+        lastFrameAt = now;
+        return true;
+    }
+
+    /**
+     * Waits until the next logic deadline, or the next render deadline when {@code renderPending}.
+     * Returns immediately when an uncapped frame is pending.
+     */
+    void awaitNext(boolean renderPending) {
+        long deadline = nextLogicDeadline;
+        if (renderPending) {
+            if (renderIntervalNanos <= 0) {
+                return;
+            }
+            deadline = Math.min(deadline, nextRenderDeadline);
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+        }
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Frame-to-frame time at the given percentile (0..100) over the last few seconds, in milliseconds.
+     */
+    double getFrameTimePercentileMillis(double percentile) {
+        int size = sampleSize;
+        if (size == 0) {
+            return 0.0;
+        }
+        System.arraycopy(frameSamples, 0, sortScratch, 0, size);
+        Arrays.sort(sortScratch, 0, size);
+        int index = (int) Math.ceil(Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * size) - 1;
+        return sortScratch[Math.max(0, index)] / 1_000_000.0;
+    }
+}
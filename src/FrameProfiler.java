@@ -0,0 +1,231 @@
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Always-compiled per-subsystem timer. Call sites bracket work with {@link #begin()} / {@link #end};
+ * while the profiler is off {@code begin()} returns 0 after one volatile read and {@code end} returns
+ * on that 0, so the zones can stay in hot paths permanently.
+ * <p>
+ * Each zone has exactly one writer thread (logic zones on the game loop, draw zones on whichever thread
+ * renders) and keeps a ring of recent samples plus a log-linear histogram for percentiles. Writers
+ * publish through a volatile sample count, readers take whatever is published; nothing locks.
+ */
+final class FrameProfiler {
+    private static final int RING_SIZE = 240;
+    private static final int GRAPH_HEIGHT = 60;
+    private static final int ROW_HEIGHT = 13;
+    static final int OVERLAY_WIDTH = RING_SIZE + 16;
+    // histogram แบบ HDR: แต่ละช่วงกำลังสองแบ่งย่อย 2^SUB_BUCKET_BITS ช่อง (ความละเอียด ~12%)
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color OVERLAY_GRID = new Color(255, 255, 255, 60);
+    private static final Color OVERLAY_GOOD = new Color(90, 200, 120);
+    private static final Color OVERLAY_WARN = new Color(230, 190, 70);
+    private static final Color OVERLAY_BAD = new Color(230, 80, 70);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+    // ตัวเลขในตารางเปลี่ยนทุกเฟรม: สร้างข้อความใหม่แค่ 4 ครั้งต่อวินาทีพอให้อ่านทัน
+    private static final long TEXT_REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    enum Zone {
+        FRAME("Frame"),
+        UPDATE_INPUT("updateInput"),
+        UPDATE_WORLD("updateWorld"),
+        INTERACTIONS_UPDATE("Interactions.update"),
+        FIND_INTERACTABLE("findBestInteractable"),
+        NPC_UPDATE("NPC.update"),
+        CAMERA_UPDATE("camera.update"),
+        DRAW_GROUND("drawGround"),
+        RENDER_SORT("renderQueue.sort"),
+        DRAW_DECORATIONS("drawDecorations"),
+        DRAW_HUD("drawHUD"),
+        SCALE_BLIT("scale blit");
+
+        final String label;
+
+        Zone(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Zone[] ZONES = Zone.values();
+    static final int OVERLAY_HEIGHT = GRAPH_HEIGHT + 28 + ROW_HEIGHT * (ZONES.length - 1);
+
+    private final ZoneStats[] zones = new ZoneStats[ZONES.length];
+    private final String[] rowText = new String[ZONES.length];
+    private long rowTextBuiltAt;
+    private volatile boolean enabled;
+
+    FrameProfiler() {
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = new ZoneStats();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            for (ZoneStats stats : zones) {
+                stats.reset();
+            }
+            rowText[0] = null;
+        }
+        this.enabled = enabled;
+    }
+
+    long begin() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    void end(Zone zone, long startNanos) {
+        if (startNanos == 0L) {
+            return;
+        }
+        zones[zone.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    void record(Zone zone, long nanos) {
+        if (enabled) {
+            zones[zone.ordinal()].record(nanos);
+        }
+    }
+
+    double getAverageMillis(Zone zone) {
+        return zones[zone.ordinal()].averageMillis();
+    }
+
+    double getPercentileMillis(Zone zone, double percentile) {
+        return zones[zone.ordinal()].percentileMillis(percentile);
+    }
+
+    /**
+     * Draws the frame-time graph and a per-zone table in screen space at ({@code x}, {@code y}).
+     */
+    void drawOverlay(Graphics2D g, int x, int y) {
+        if (!enabled) {
+            return;
+        }
+        int graphW = RING_SIZE;
+        int graphH = GRAPH_HEIGHT;
+        int rowH = ROW_HEIGHT;
+        int panelW = OVERLAY_WIDTH;
+        int panelH = OVERLAY_HEIGHT;
+
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(x, y, panelW, panelH);
+
+        // frame-time graph; เส้นอ้างอิงที่ 16.7ms (60 FPS) และ 33.3ms
+        ZoneStats frame = zones[Zone.FRAME.ordinal()];
+        int gx = x + 8;
+        int gy = y + 8;
+        double maxMs = 40.0;
+        g.setColor(OVERLAY_GRID);
+        int line60 = gy + graphH - (int) (16.7 / maxMs * graphH);
+        int line30 = gy + graphH - (int) (33.3 / maxMs * graphH);
+        g.drawLine(gx, line60, gx + graphW, line60);
+        g.drawLine(gx, line30, gx + graphW, line30);
+        long count = frame.count;
+        int samples = (int) Math.min(count, RING_SIZE);
+        for (int i = 0; i < samples; i++) {
+            long nanos = frame.ring[(int) ((count - samples + i) % RING_SIZE)];
+            double ms = nanos / 1_000_000.0;
+            int barH = (int) Math.min(graphH, ms / maxMs * graphH);
+            g.setColor(ms > 33.3 ? OVERLAY_BAD : ms > 17.5 ? OVERLAY_WARN : OVERLAY_GOOD);
+            g.drawLine(gx + i, gy + graphH, gx + i, gy + graphH - barH);
+        }
+
+        g.setFont(OVERLAY_FONT);
+        g.setColor(Color.WHITE);
+        int ty = gy + graphH + 14;
+        long now = System.nanoTime();
+        if (rowText[0] == null || now - rowTextBuiltAt >= TEXT_REFRESH_NANOS) {
+            buildRowText();
+            rowTextBuiltAt = now;
+        }
+        g.drawString(rowText[Zone.FRAME.ordinal()], gx, ty);
+        for (Zone zone : ZONES) {
+            if (zone == Zone.FRAME) {
+                continue;
+            }
+            ty += rowH;
+            g.drawString(rowText[zone.ordinal()], gx, ty);
+        }
+    }
+
+    private void buildRowText() {
+        for (Zone zone : ZONES) {
+            ZoneStats stats = zones[zone.ordinal()];
+            rowText[zone.ordinal()] = zone == Zone.FRAME
+                    ? String.format(Locale.ROOT, "frame  avg %5.2f  p99 %5.2f ms", stats.averageMillis(), stats.percentileMillis(99))
+                    : String.format(Locale.ROOT, "%-20s %6.3f %6.3f", zone.label, stats.averageMillis(), stats.percentileMillis(99));
+        }
+    }
+
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0L, nanos);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+
+    private static final class ZoneStats {
+        final long[] ring = new long[RING_SIZE];
+        final long[] histogram = new long[BUCKET_COUNT];
+        long totalNanos;
+        // เขียนหลังสุดเป็น volatile เพื่อ publish ค่าข้างบนให้ thread ที่อ่าน
+        volatile long count;
+
+        void record(long nanos) {
+            long n = count;
+            ring[(int) (n % RING_SIZE)] = nanos;
+            histogram[bucketIndex(nanos)]++;
+            totalNanos += nanos;
+            count = n + 1;
+        }
+
+        void reset() {
+            Arrays.fill(histogram, 0L);
+            totalNanos = 0L;
+            count = 0L;
+        }
+
+        double averageMillis() {
+            long n = count;
+            return n == 0 ? 0.0 : totalNanos / (double) n / 1_000_000.0;
+        }
+
+        double percentileMillis(double percentile) {
+            long n = count;
+            if (n == 0) {
+                return 0.0;
+            }
+            long target = (long) Math.ceil(percentile / 100.0 * n);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    return bucketUpperBound(i) / 1_000_000.0;
+                }
+            }
+            return bucketUpperBound(histogram.length - 1) / 1_000_000.0;
+        }
+    }
+}
@@ -7,9 +7,60 @@ public class Game {
                 UIManager.setLookAndFeel(UIManager.getLookAndFeel());
             } catch (Exception e) { /* ignore */ }
 
-            GameWindow gw = new GameWindow();
+            // ทุก option ตั้งได้ทั้ง -Dgame.<name> และ argument; argument มีผลเหนือกว่า
+            // --active-rendering: วาดเองผ่าน BufferStrategy
+            boolean activeRendering = Boolean.getBoolean("game.activeRendering");
+            // --image-cache-mb=<n>: งบหน่วยความจำของ image cache (MB)
+            String imageCacheMb = System.getProperty("game.imageCacheMB");
+            // --image-mode=managed|none: แปลงภาพที่โหลดเป็น compatible image (ค่า property อ่านใน CompatibleImages)
+            String imageMode = null;
+            // --telemetry-log=<ไฟล์>: บันทึก allocation/GC เป็น JSONL
+            String telemetryLog = System.getProperty("game.telemetryLog");
+            // --seed=<n> ทำให้ RNG ทุก stream เริ่มจากค่าเดิม; --record=<ไฟล์> บันทึก input ของเกมใหม่ไว้เล่นซ้ำ
+            String seed = System.getProperty("game.seed");
+            String record = System.getProperty("game.record");
+            for (String arg : args) {
+                if ("--active-rendering".equals(arg)) {
+                    activeRendering = true;
+                } else if (arg.startsWith("--image-cache-mb=")) {
+                    imageCacheMb = arg.substring("--image-cache-mb=".length());
+                } else if (arg.startsWith("--image-mode=")) {
+                    imageMode = arg.substring("--image-mode=".length());
+                } else if (arg.startsWith("--telemetry-log=")) {
+                    telemetryLog = arg.substring("--telemetry-log=".length());
+                } else if (arg.startsWith("--seed=")) {
+                    seed = arg.substring("--seed=".length());
+                } else if (arg.startsWith("--record=")) {
+                    record = arg.substring("--record=".length());
+                }
+            }
+
+            if (imageMode != null) {
+                CompatibleImages.setMode(CompatibleImages.Mode.parse(imageMode));
+            }
+            if (imageCacheMb != null && !imageCacheMb.isEmpty()) {
+                try {
+                    ResourceLoader.getImageCache().setBudgetBytes(Long.parseLong(imageCacheMb.trim()) * 1024 * 1024);
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring invalid image cache size '" + imageCacheMb + "', using the default");
+                }
+            }
+            GameWindow gw = new GameWindow(activeRendering);
+            if (seed != null && !seed.isEmpty()) {
+                try {
+                    gw.panel.random.setMasterSeed(Long.parseLong(seed.trim()));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring invalid seed '" + seed + "', using a random seed");
+                }
+            }
+            if (record != null && !record.isEmpty()) {
+                gw.panel.startRecording(java.nio.file.Paths.get(record));
+            }
+            if (telemetryLog != null && !telemetryLog.isEmpty()) {
+                gw.panel.telemetry.setLogFile(java.nio.file.Paths.get(telemetryLog));
+                gw.panel.telemetry.setEnabled(true);
+            }
             gw.show();
         });
     }
 }
-
@@ -7,12 +7,18 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 public class GamePanel extends JPanel {
     private static final double WORLD_MESSAGE_DURATION = 3.5;
     private static final int BOSS_KEYS_REQUIRED = 3;
     private static final String[] PAUSE_OPTIONS = {"Resume", "Save", "Main Menu", "Quit"};
+    private static final double RENDER_CULL_MARGIN = 64.0;
+    private static final long SAVE_WAIT_MILLIS = 5000;
+    private static final Color WORLD_CLEAR_COLOR = new Color(0x2b2b2b);
+    private static final Color STATS_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final AffineTransform IDENTITY_TRANSFORM = new AffineTransform();
     final int vw, vh;
     final List<WorldMessage> worldMessages = new ArrayList<>();
     final double LOGIC_FPS = 60;
@@ -21,15 +27,51 @@ public class GamePanel extends JPanel {
     private final FastTravelNetwork fastTravelNetwork = new FastTravelNetwork();
     private final DialogManager dialogManager = new DialogManager();
     private final List<NPC> npcs = new ArrayList<>();
+    private final RenderQueue renderQueue = new RenderQueue();
+    // logic thread ถือ lock ตลอด step; paint อ่าน state ภายใต้ lock เดียวกัน
+    final ReentrantLock stateLock = new ReentrantLock();
+    private final RenderSnapshot renderSnapshot = new RenderSnapshot(LOGIC_DT);
+    // camera transform ของ world pass ใช้ซ้ำทุกเฟรม (getTransform() copy ใหม่ทุกครั้ง)
+    private final AffineTransform worldTransform = new AffineTransform();
+    volatile boolean interpolateRendering = true;
+    private double renderAlpha = 1.0;
+    private ActiveRenderSurface activeSurface;
+    private final FramePacer framePacer = new FramePacer(LOGIC_FPS);
+    final FrameProfiler profiler = new FrameProfiler();
+    // frame ที่นานเกิน 1.5 step ถือเป็นอาการกระตุก
+    final GcTelemetry telemetry = new GcTelemetry(Math.round(1_500_000_000.0 / LOGIC_FPS));
+    volatile boolean lowPowerMode = true;
+    private volatile boolean redrawRequested = true;
+    private int lastDrawnInputChange;
+    private State lastDrawnState;
+    private boolean lastDrawnPause;
+    private final ActiveRenderSurface.FrameRenderer activeFrameRenderer = new ActiveRenderSurface.FrameRenderer() {
+        @Override
+        public void renderWorld(Graphics2D g) {
+            GamePanel.this.renderWorld(g);
+        }
+
+        @Override
+        public void compose(Graphics2D g, Image world, int width, int height) {
+            composeFrame(g, world, width, height);
+        }
+    };
+    private final VisibleCollector visibleCollector = new VisibleCollector();
     private final List<WorldObjectFactory.FastTravelPoint> fastTravelOptions = new ArrayList<>();
     private final Map<String, Sprite> portraitCache = new HashMap<>();
     private final Set<String> missingAudio = new HashSet<>();
-    private final AmbushManager ambushManager = new AmbushManager();
-    private final SoundManager soundManager = new SoundManager();
+    // ไฟล์ที่เช็คแล้วว่ามี: ไม่ต้องค้น classpath ซ้ำทุกครั้งที่เล่นเสียง
+    private final Set<String> availableAudio = new HashSet<>();
+    final GameRandom random = new GameRandom(System.nanoTime());
+    private final AmbushManager ambushManager = new AmbushManager(random.stream(GameRandom.Stream.AMBUSH));
+    private final SaveWriter saveWriter = new SaveWriter(Paths.get("saves"));
+    private final AudioSink soundManager;
     private final StatsMenuController statsMenu = new StatsMenuController(this);
     private final SkillUpgradeMenu skillMenu = new SkillUpgradeMenu(this);
     private final HudRenderer hudRenderer = new HudRenderer(this, statsMenu);
-    private final Enemy.PartyGenerator enemyPartyGen = new Enemy.PartyGenerator();
+    private final Enemy.PartyGenerator enemyPartyGen = new Enemy.PartyGenerator(random.stream(GameRandom.Stream.ENCOUNTER));
+    private InputRecorder recorder;
+    private boolean inLogicStep;
     BufferedImage worldBackBuffer;
     TileMap map;
     Camera camera;
@@ -58,18 +100,41 @@ public class GamePanel extends JPanel {
     private boolean gameCompleted = false;
     private int pauseSelection = 0;
     private String lastSaveName = null;
+    private int renderDrawnCount = 0;
+    private int renderCulledCount = 0;
+    // debug overlay: font derive ครั้งเดียว, ข้อความสร้างใหม่เฉพาะเมื่อตัวเลขเปลี่ยน
+    private Font statsFont;
+    private String renderStatsText;
+    private int renderStatsDrawn = -1;
+    private int renderStatsCulled = -1;
+    private String imageStatsText;
+    private long imageStatsHits = -1;
+    private long imageStatsMisses = -1;
+    private long imageStatsEvictions = -1;
+    private long imageStatsResident = -1;
+    private long imageStatsBudget = -1;
     private Runnable fullscreenToggleHandler;
 
     public GamePanel(int virtualWidth, int virtualHeight) {
+        this(virtualWidth, virtualHeight, null, new SoundManager());
+    }
+
+    /**
+     * @param input keyboard state to read; null binds a new {@link InputManager} to this panel
+     * @param audio where music and sound effects go, e.g. {@link AudioSink#SILENT} for headless runs
+     */
+    GamePanel(int virtualWidth, int virtualHeight, InputManager input, AudioSink audio) {
         this.vw = virtualWidth;
         this.vh = virtualHeight;
+        this.soundManager = audio;
         setBackground(Color.RED);
         setFocusable(true);
+        framePacer.setRenderCap(LOGIC_FPS);
         FontCustom.loadFonts();
         worldBackBuffer = new BufferedImage(vw, vh, BufferedImage.TYPE_INT_ARGB);
-        input = new InputManager(this);
+        this.input = input != null ? input : new InputManager(this);
         try {
-            map = TileMap.loadFromTMX("tiles/map.tmx");
+            map = TileMap.load("tiles/map.tmx");
             System.out.println("TMX map loaded successfully");
         } catch (Exception e) {
             System.out.println("TMX load failed (using placeholder): " + e.getMessage());
@@ -199,6 +264,10 @@ public class GamePanel extends JPanel {
     }
 
     public void startNewGame(String saveName) {
+        long sessionSeed = random.newSession();
+        if (recorder != null) {
+            recorder.start(sessionSeed, input, inLogicStep);
+        }
         gameCompleted = false;
         createDefaultParty();
         state = State.WORLD;
@@ -220,6 +289,11 @@ public class GamePanel extends JPanel {
             }
         }
 
+        if (input.consumeIfPressed("F3")) {
+            profiler.setEnabled(!profiler.isEnabled());
+            telemetry.setEnabled(profiler.isEnabled() || telemetry.isLogging());
+        }
+
         if (skillMenu.isOpen()) {
             skillMenu.update();
             return;
@@ -295,7 +369,11 @@ public class GamePanel extends JPanel {
                     state = State.TITLE;
                     break;
                 case TITLE:
-                    int confirm = JOptionPane.showConfirmDialog(this, "Are you sure you want to exit the game?", "Exit Game", JOptionPane.YES_NO_OPTION);
+                    if (GraphicsEnvironment.isHeadless()) {
+                        break;
+                    }
+                    int confirm = showDialog(() -> JOptionPane.showConfirmDialog(this, "Are you sure you want to exit the game?", "Exit Game", JOptionPane.YES_NO_OPTION),
+                            JOptionPane.NO_OPTION);
                     if (confirm == JOptionPane.YES_OPTION) {
                         System.exit(0);
                     }
@@ -337,6 +415,7 @@ public class GamePanel extends JPanel {
     }
 
     public void onWindowResize() {
+        redrawRequested = true;
         repaint();
     }
 
@@ -357,37 +436,61 @@ public class GamePanel extends JPanel {
                 Thread.currentThread().interrupt();
             }
         }
+        telemetry.close();
+        saveWriter.close(SAVE_WAIT_MILLIS);
+        soundManager.close();
+        if (recorder != null) {
+            recorder.close();
+        }
     }
 
     void gameLoop() {
-        final double updateInterval = 1_000_000_000.0 / LOGIC_FPS;
-        double accumulator = 0.0;
         long lastTime = System.nanoTime();
+        framePacer.reset(lastTime);
         long timer = 0L;
+        long lastFrameTime = 0L;
         int frameCount = 0;
-        boolean needsRepaint = false;
+        boolean needsRepaint = true;
 
-        while (running) {
+        while (running && !Thread.currentThread().isInterrupted()) {
             long currentTime = System.nanoTime();
-            long elapsed = currentTime - lastTime;
+            timer += currentTime - lastTime;
             lastTime = currentTime;
 
-            accumulator += elapsed;
-            timer += elapsed;
-
-            // Prevent spiral of death
-            accumulator = Math.min(accumulator, updateInterval * 3);
-
-            // Update logic at fixed timestep
-            while (accumulator >= updateInterval) {
-                updateLogic(LOGIC_DT);
-                accumulator -= updateInterval;
+            // Update logic at fixed timestep; each step is stamped with its scheduled time
+            long stepTime;
+            while ((stepTime = framePacer.pollLogicStep(currentTime)) >= 0) {
+                stateLock.lock();
+                try {
+                    long allocStart = telemetry.begin();
+                    updateLogic(LOGIC_DT);
+                    telemetry.end(GcTelemetry.Phase.UPDATE_LOGIC, allocStart);
+                    renderSnapshot.publish(camera, party, npcs, stepTime);
+                } finally {
+                    stateLock.unlock();
+                }
                 needsRepaint = true;
             }
 
-            // Repaint only once per frame, only if needed
-            if (needsRepaint) {
-                repaint();
+            // With interpolation every loop iteration can show a new in-between frame
+            boolean wantsFrame = needsRepaint || interpolateRendering;
+            if (wantsFrame && lowPowerMode && isDisplayStatic() && !hasDisplayChanged()) {
+                // title/pause ที่ไม่มีอะไรเปลี่ยน ไม่ต้องวาดซ้ำ
+                wantsFrame = false;
+                needsRepaint = false;
+            }
+            if (wantsFrame && framePacer.pollRenderFrame(currentTime)) {
+                if (lastFrameTime != 0L) {
+                    profiler.record(FrameProfiler.Zone.FRAME, currentTime - lastFrameTime);
+                    telemetry.onFrame(currentTime, currentTime - lastFrameTime);
+                }
+                lastFrameTime = currentTime;
+                rememberDisplayState();
+                if (activeSurface != null) {
+                    renderActiveFrame();
+                } else {
+                    repaint();
+                }
 
                 needsRepaint = false;
                 frameCount++;
@@ -396,25 +499,53 @@ public class GamePanel extends JPanel {
             // FPS counter
             if (timer >= 1_000_000_000L) {
                 if (debugMode) {
-                    System.out.println("FPS: " + frameCount);
+                    System.out.printf("FPS: %d (frame p50 %.2f ms, p99 %.2f ms)%n", frameCount,
+                            framePacer.getFrameTimePercentileMillis(50), framePacer.getFrameTimePercentileMillis(99));
                 }
                 frameCount = 0;
                 timer = 0;
             }
 
-            // Prevent CPU spinning
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
+            framePacer.awaitNext(wantsFrame);
         }
     }
 
+    void setRenderFpsCap(double fps) {
+        framePacer.setRenderCap(fps);
+    }
+
+    void setLowPowerMode(boolean enabled) {
+        lowPowerMode = enabled;
+        redrawRequested = true;
+    }
+
+    // หน้าจอที่ไม่ขยับเองถ้าไม่มี input: title, save menu และ pause overlay
+    // world message ยังจางลงทุก step (แม้ตอน pause) จึงไม่นับว่านิ่ง
+    private boolean isDisplayStatic() {
+        return (state == State.TITLE || state == State.SAVE_MENU || showPauseOverlay) && worldMessages.isEmpty();
+    }
+
+    private boolean hasDisplayChanged() {
+        return redrawRequested
+                || input.getChangeCount() != lastDrawnInputChange
+                || state != lastDrawnState
+                || showPauseOverlay != lastDrawnPause;
+    }
+
+    private void rememberDisplayState() {
+        redrawRequested = false;
+        lastDrawnInputChange = input.getChangeCount();
+        lastDrawnState = state;
+        lastDrawnPause = showPauseOverlay;
+    }
 
     void updateLogic(double dt) {
+        inLogicStep = true;
+        input.beginStep();
+        saveWriter.drainResults(this::onSaveFinished);
+        long inputStart = profiler.begin();
         updateInput();
+        profiler.end(FrameProfiler.Zone.UPDATE_INPUT, inputStart);
         highlightedInteractable = null;
         switch (state) {
             case TITLE:
@@ -425,7 +556,9 @@ public class GamePanel extends JPanel {
                 break;
             case WORLD:
                 if (!showPauseOverlay) {
+                    long worldStart = profiler.begin();
                     updateWorld(dt);
+                    profiler.end(FrameProfiler.Zone.UPDATE_WORLD, worldStart);
                 } else {
                     updateWorldMessages(dt);
                 }
@@ -436,6 +569,42 @@ public class GamePanel extends JPanel {
                 }
                 break;
         }
+        inLogicStep = false;
+        if (recorder != null) {
+            recorder.endStep(this);
+        }
+    }
+
+    /**
+     * Records the input of every new game started from now on to {@code file} (see {@link InputRecorder}).
+     */
+    void startRecording(java.nio.file.Path file) {
+        recorder = new InputRecorder(file);
+    }
+
+    /**
+     * Hash of the simulation state that a replay must reproduce: mode, currencies and each party
+     * member's exact position and battle stats.
+     */
+    long stateChecksum() {
+        long h = state.ordinal();
+        h = h * 31 + activeIndex;
+        h = h * 31 + gold;
+        h = h * 31 + essence;
+        h = h * 31 + bossKeys;
+        h = h * 31 + (showPauseOverlay ? 1 : 0);
+        if (party != null) {
+            for (Player player : party) {
+                h = h * 31 + Double.doubleToLongBits(player.getPreciseX());
+                h = h * 31 + Double.doubleToLongBits(player.getPreciseY());
+                Stats stats = player.getStats();
+                h = h * 31 + stats.getLevel();
+                h = h * 31 + stats.getExp();
+                h = h * 31 + stats.getCurrentHp();
+                h = h * 31 + stats.getCurrentBattlePoints();
+            }
+        }
+        return GameRandom.mix(h);
     }
 
     void updateWorld(double dt) {
@@ -482,21 +651,29 @@ public class GamePanel extends JPanel {
 
 
         if (activeIndex < party.size()) {
+            long cameraStart = profiler.begin();
             camera.update(dt, leader);
+            profiler.end(FrameProfiler.Zone.CAMERA_UPDATE, cameraStart);
         }
 
         if (worldObjectManager != null) {
+            long interactionsStart = profiler.begin();
             worldObjectManager.update(dt);
+            profiler.end(FrameProfiler.Zone.INTERACTIONS_UPDATE, interactionsStart);
         }
 
+        long npcStart = profiler.begin();
         for (NPC npc : npcs) {
             if (npc != null) {
                 npc.update(dt);
             }
         }
+        profiler.end(FrameProfiler.Zone.NPC_UPDATE, npcStart);
 
         if (!dialogActive && !fastTravelMenuOpen && worldObjectManager != null) {
+            long findStart = profiler.begin();
             highlightedInteractable = worldObjectManager.findBestInteractable(leader);
+            profiler.end(FrameProfiler.Zone.FIND_INTERACTABLE, findStart);
         } else {
             highlightedInteractable = null;
         }
@@ -676,19 +853,61 @@ public class GamePanel extends JPanel {
         if (zoneId == lastAmbientZoneId && ambientActive) {
             return;
         }
+        boolean zoneChanged = zoneId != lastAmbientZoneId;
         lastAmbientZoneId = zoneId;
-        String track = switch (zoneId) {
+        String track = ambientTrackForZone(zoneId);
+        if (!track.equals(currentAmbientTrack)) {
+            currentAmbientTrack = track;
+            playAmbientTrack(track);
+        } else if (!ambientActive) {
+            playAmbientTrack(track);
+        }
+        // prefetch หลังเล่นเพลงของโซนนี้แล้ว: ถ้าทำก่อน stream ที่เตรียมไว้จะถูกปิดทิ้งเพราะไม่ใช่โซนข้างเคียง
+        if (zoneChanged) {
+            prefetchNearbyMusic(zoneId);
+        }
+    }
+
+    private static String ambientTrackForZone(int zoneId) {
+        return switch (zoneId) {
             case 1 -> "ambient_plain";
             case 2 -> "ambient_forest";
             case 3 -> "ambient_desert";
             case 4 -> "ambient_tundra";
             default -> "ambient_overworld";
         };
-        if (!track.equals(currentAmbientTrack)) {
-            currentAmbientTrack = track;
-            playAmbientTrack(track);
-        } else if (!ambientActive) {
-            playAmbientTrack(track);
+    }
+
+    /**
+     * Asks the audio side to buffer what can play next from {@code zoneId}: the ambient tracks of the
+     * bordering zones and the random-encounter battle tracks.
+     */
+    private void prefetchNearbyMusic(int zoneId) {
+        List<String> tracks = new ArrayList<>();
+        int adjacent = map.getAdjacentZones(zoneId);
+        for (int zone = 0; adjacent != 0; zone++, adjacent >>>= 1) {
+            if ((adjacent & 1) != 0) {
+                addIfAvailable(tracks, ambientTrackForZone(zone));
+            }
+        }
+        addIfAvailable(tracks, "battle_default");
+        addIfAvailable(tracks, "battle_ambush");
+        soundManager.prefetchMusic(tracks);
+    }
+
+    /**
+     * During a battle only the ambient track it returns to can play next; keeps that one buffered and
+     * lets the rest go until {@link #updateAmbientTrack} prefetches around the zone again.
+     */
+    private void prefetchReturnMusic() {
+        List<String> tracks = new ArrayList<>();
+        addIfAvailable(tracks, currentAmbientTrack);
+        soundManager.prefetchMusic(tracks);
+    }
+
+    private void addIfAvailable(List<String> tracks, String trackId) {
+        if (!tracks.contains(trackId) && ensureAudioAsset(trackId)) {
+            tracks.add(trackId);
         }
     }
 
@@ -713,6 +932,7 @@ public class GamePanel extends JPanel {
         soundManager.stopChannel(SoundManager.Channel.AMBIENT);
         soundManager.stopChannel(SoundManager.Channel.BATTLE);
         soundManager.playBattle(trackId);
+        prefetchReturnMusic();
     }
 
     void playSfx(String sfxId) {
@@ -732,11 +952,15 @@ public class GamePanel extends JPanel {
         if (missingAudio.contains(id)) {
             return false;
         }
+        if (availableAudio.contains(id)) {
+            return true;
+        }
         String resourcePath = "resources/audio/" + id + ".wav";
         if (!ResourceLoader.exists(resourcePath)) {
             missingAudio.add(id);
             return false;
         }
+        availableAudio.add(id);
         return true;
     }
 
@@ -750,6 +974,7 @@ public class GamePanel extends JPanel {
             message.update(dt);
             if (message.isExpired()) {
                 iterator.remove();
+                redrawRequested = true;
             }
         }
     }
@@ -888,31 +1113,42 @@ public class GamePanel extends JPanel {
         System.out.println("Returned to world");
     }
 
+    /**
+     * Snapshots the game now and writes it in the background; the result shows up as a world message.
+     */
     void saveGame(String name) {
         if (name == null || name.trim().isEmpty()) {
             System.err.println("Save failed: missing save name");
             return;
         }
-        try {
-            Files.createDirectories(Paths.get("saves"));
-            SaveData sd = SaveData.capture(this);
-            try (ObjectOutputStream oos = new ObjectOutputStream(
-                    new FileOutputStream("saves/" + name + ".sav"))) {
-                oos.writeObject(sd);
-            }
-            lastSaveName = name;
-            System.out.println("Game saved: saves/" + name + ".sav");
-        } catch (Exception e) {
-            System.err.println("Save failed: " + e.getMessage());
-            e.printStackTrace();
+        saveWriter.submit(name, SaveData.capture(this));
+        lastSaveName = name;
+    }
+
+    private void onSaveFinished(SaveWriter.Result result) {
+        if (result.succeeded()) {
+            System.out.printf(Locale.ROOT, "Game saved: %s (%d bytes, %.1f ms)%n",
+                    result.file(), result.bytes(), result.nanos() / 1e6);
+            queueWorldMessage("Game saved to '" + result.name() + "'.");
+        } else {
+            System.err.println("Save failed: " + result.error().getMessage());
+            result.error().printStackTrace();
+            queueWorldMessage("Save to '" + result.name() + "' failed!");
         }
     }
 
     boolean loadGame(String name) {
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream("saves/" + name + ".sav"))) {
-            SaveData sd = (SaveData) ois.readObject();
+        // เซฟที่เพิ่งสั่งอาจยังเขียนไม่เสร็จ
+        saveWriter.awaitIdle(SAVE_WAIT_MILLIS);
+        try {
+            SaveCodec.Decoded decoded = SaveCodec.read(saveWriter.fileFor(name));
+            SaveData sd = decoded.data();
             applySaveData(sd);
+            if (decoded.legacy()) {
+                // เซฟรูปแบบเก่า (Java serialization): เขียนใหม่เป็น binary
+                saveWriter.submit(name, sd);
+                System.out.println("Migrating save " + name + " to binary format v" + SaveCodec.VERSION);
+            }
             lastSaveName = name;
             gameCompleted = false;
             state = State.WORLD;
@@ -1043,6 +1279,7 @@ public class GamePanel extends JPanel {
             WorldMessage last = worldMessages.get(worldMessages.size() - 1);
             if (last.text().equals(trimmed)) {
                 last.restart();
+                redrawRequested = true;
                 return;
             }
         }
@@ -1050,6 +1287,7 @@ public class GamePanel extends JPanel {
             worldMessages.remove(0);
         }
         worldMessages.add(new WorldMessage(trimmed, WORLD_MESSAGE_DURATION));
+        redrawRequested = true;
     }
 
     void startDialog(DialogTree tree, WorldObjectManager.InteractionContext context) {
@@ -1290,10 +1528,61 @@ public class GamePanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g0) {
         super.paintComponent(g0);
+        if (activeSurface != null) {
+            return;
+        }
+        // logic thread ปล่อย lock ระหว่างเปิด dialog (ดู showDialog) จึงรอ lock ได้ตรง ๆ
+        stateLock.lock();
+        try {
+            paintFrame((Graphics2D) g0);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void paintFrame(Graphics2D g2) {
+        renderAlpha = interpolateRendering ? renderSnapshot.alpha(System.nanoTime()) : 1.0;
         // --- World back buffer ---
         Graphics2D gWorld = worldBackBuffer.createGraphics();
-        gWorld.setColor(new Color(0x2b2b2b));
-        gWorld.fillRect(0, 0, worldBackBuffer.getWidth(), worldBackBuffer.getHeight());
+        try {
+            renderWorld(gWorld);
+        } finally {
+            gWorld.dispose();
+        }
+        composeFrame(g2, worldBackBuffer, getWidth(), getHeight());
+    }
+
+    /**
+     * Switches to active rendering: the game loop draws every frame into {@code surface} itself and
+     * Swing repaints of this panel are ignored. Must be called before {@link #start()}.
+     */
+    void enableActiveRendering(ActiveRenderSurface surface) {
+        if (surface == null || activeSurface != null) {
+            return;
+        }
+        activeSurface = surface;
+        setLayout(new BorderLayout());
+        add(surface, BorderLayout.CENTER);
+        setIgnoreRepaint(true);
+    }
+
+    boolean isActiveRendering() {
+        return activeSurface != null;
+    }
+
+    private void renderActiveFrame() {
+        stateLock.lock();
+        try {
+            renderAlpha = interpolateRendering ? renderSnapshot.alpha(System.nanoTime()) : 1.0;
+            activeSurface.render(activeFrameRenderer);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private void renderWorld(Graphics2D gWorld) {
+        gWorld.setColor(WORLD_CLEAR_COLOR);
+        gWorld.fillRect(0, 0, vw, vh);
 
         try {
             switch (state) {
@@ -1303,24 +1592,28 @@ public class GamePanel extends JPanel {
                 case SAVE_MENU:
                     saveMenu.draw(gWorld);
                     break;
-                case WORLD:
+                case WORLD: {
+                    long allocStart = telemetry.begin();
                     drawWorld(gWorld);
+                    telemetry.end(GcTelemetry.Phase.DRAW_WORLD, allocStart);
                     break;
-                case BATTLE:
+                }
+                case BATTLE: {
+                    long allocStart = telemetry.begin();
                     battleScreen.draw(gWorld);
+                    telemetry.end(GcTelemetry.Phase.BATTLE_DRAW, allocStart);
                     break;
+                }
             }
         } catch (Exception e) {
             Graphics2D gError = gWorld;
             gError.setColor(Color.RED);
             gError.drawString("Render Error: " + e.getMessage(), 10, 30);
         }
+    }
 
-//        gWorld.dispose();
-
+    private void composeFrame(Graphics2D g2, Image world, int pw, int ph) {
         // --- Compose final screen ---
-        Graphics2D g2 = (Graphics2D) g0;
-        int pw = getWidth(), ph = getHeight();
         double sx = (double) pw / vw, sy = (double) ph / vh;
         double scale = Math.min(sx, sy);
         int drawW = (int) (vw * scale), drawH = (int) (vh * scale);
@@ -1332,13 +1625,17 @@ public class GamePanel extends JPanel {
         g2.fillRect(0, 0, pw, ph);
 
         // Draw rendered scene
-        g2.drawImage(worldBackBuffer, ox, oy, drawW, drawH, null);
+        long blitStart = profiler.begin();
+        g2.drawImage(world, ox, oy, drawW, drawH, null);
+        profiler.end(FrameProfiler.Zone.SCALE_BLIT, blitStart);
 
         if (state == State.WORLD) {
             AffineTransform oldHudTransform = g2.getTransform();
             g2.translate(ox, oy);
             g2.scale(scale, scale);
+            long hudStart = profiler.begin();
             drawHUD(g2);
+            profiler.end(FrameProfiler.Zone.DRAW_HUD, hudStart);
             g2.setTransform(oldHudTransform);
         }
 
@@ -1354,6 +1651,9 @@ public class GamePanel extends JPanel {
         if (showPauseOverlay && (state == State.WORLD || state == State.BATTLE)) {
             drawPauseMenu(g2); // new method
         }
+        int overlayX = pw - FrameProfiler.OVERLAY_WIDTH - 8;
+        profiler.drawOverlay(g2, overlayX, 8);
+        telemetry.drawOverlay(g2, overlayX, profiler.isEnabled() ? FrameProfiler.OVERLAY_HEIGHT + 12 : 8);
 
 
     }
@@ -1430,26 +1730,22 @@ public class GamePanel extends JPanel {
     }
 
     private void promptPauseSave() {
-        final String[] result = new String[1];
-        try {
-            SwingUtilities.invokeAndWait(() -> result[0] = (String) JOptionPane.showInputDialog(
-                    this,
-                    "Enter save name:",
-                    "Save Game",
-                    JOptionPane.PLAIN_MESSAGE,
-                    null,
-                    null,
-                    lastSaveName != null ? lastSaveName : ""));
-        } catch (Exception e) {
-            result[0] = null;
-        }
-
-        if (result[0] == null) {
+        String initialName = lastSaveName != null ? lastSaveName : "";
+        String result = showDialog(() -> (String) JOptionPane.showInputDialog(
+                this,
+                "Enter save name:",
+                "Save Game",
+                JOptionPane.PLAIN_MESSAGE,
+                null,
+                null,
+                initialName), null);
+
+        if (result == null) {
             requestFocusInWindow();
             return;
         }
 
-        String chosen = result[0].trim();
+        String chosen = result.trim();
         if (chosen.isEmpty()) {
             queueWorldMessage("Save cancelled.");
             requestFocusInWindow();
@@ -1457,24 +1753,18 @@ public class GamePanel extends JPanel {
         }
 
         saveGame(chosen);
-        lastSaveName = chosen;
-        queueWorldMessage("Game saved to '" + chosen + "'.");
+        queueWorldMessage("Saving to '" + chosen + "'...");
         requestFocusInWindow();
     }
 
     private void promptReturnToTitle() {
-        final int[] response = new int[1];
-        try {
-            SwingUtilities.invokeAndWait(() -> response[0] = JOptionPane.showConfirmDialog(
-                    this,
-                    "Return to the title screen? Unsaved progress will be lost.",
-                    "Return to Title",
-                    JOptionPane.YES_NO_OPTION));
-        } catch (Exception e) {
-            response[0] = JOptionPane.NO_OPTION;
-        }
+        int response = showDialog(() -> JOptionPane.showConfirmDialog(
+                this,
+                "Return to the title screen? Unsaved progress will be lost.",
+                "Return to Title",
+                JOptionPane.YES_NO_OPTION), JOptionPane.NO_OPTION);
 
-        if (response[0] == JOptionPane.YES_OPTION) {
+        if (response == JOptionPane.YES_OPTION) {
             closePauseMenu();
             dialogManager.clear();
             statsMenu.close(true);
@@ -1489,98 +1779,141 @@ public class GamePanel extends JPanel {
     }
 
     private void promptQuitGame() {
-        final int[] response = new int[1];
-        try {
-            SwingUtilities.invokeAndWait(() -> response[0] = JOptionPane.showConfirmDialog(
-                    this,
-                    "Quit the game? Unsaved progress will be lost.",
-                    "Quit Game",
-                    JOptionPane.YES_NO_OPTION));
-        } catch (Exception e) {
-            response[0] = JOptionPane.NO_OPTION;
-        }
+        int response = showDialog(() -> JOptionPane.showConfirmDialog(
+                this,
+                "Quit the game? Unsaved progress will be lost.",
+                "Quit Game",
+                JOptionPane.YES_NO_OPTION), JOptionPane.NO_OPTION);
 
-        if (response[0] == JOptionPane.YES_OPTION) {
+        if (response == JOptionPane.YES_OPTION) {
             System.exit(0);
         } else {
             requestFocusInWindow();
         }
     }
 
+    /**
+     * Shows a modal dialog on the EDT and returns its result, or {@code fallback} when it cannot be
+     * shown. Prompts are opened from inside a locked logic step; the state lock is released until the
+     * dialog closes so painting (which takes the lock) never waits on a thread that waits on the EDT.
+     * Nothing mutates the game state meanwhile, since the logic thread is the one blocked here.
+     */
+    <T> T showDialog(Supplier<T> dialog, T fallback) {
+        int holds = stateLock.getHoldCount();
+        for (int i = 0; i < holds; i++) {
+            stateLock.unlock();
+        }
+        try {
+            if (SwingUtilities.isEventDispatchThread()) {
+                return dialog.get();
+            }
+            List<T> result = new ArrayList<>(1);
+            SwingUtilities.invokeAndWait(() -> result.add(dialog.get()));
+            return result.isEmpty() ? fallback : result.get(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (Exception e) {
+            return fallback;
+        } finally {
+            for (int i = 0; i < holds; i++) {
+                stateLock.lock();
+            }
+        }
+    }
+
+    /**
+     * Draws the map and everything on it through the camera. {@code g} is a fresh graphics of the world
+     * buffer, so its transform is the identity on entry and is reset to the identity afterwards.
+     */
     void drawWorld(Graphics2D g) {
         if (camera == null) return;
 
-        AffineTransform oldTransform = g.getTransform();
         try {
             double zoomLevel = camera.getZoom();
             double camRenderX = camera.getRenderX();
             double camRenderY = camera.getRenderY();
-            g.translate(vw / 2.0, vh / 2.0);
-            g.scale(zoomLevel, zoomLevel);
-            g.translate(-camRenderX, -camRenderY);
+            if (interpolateRendering && renderSnapshot.hasCamera()) {
+                zoomLevel = renderSnapshot.zoom(renderAlpha);
+                camRenderX = Math.floor(renderSnapshot.cameraX(renderAlpha));
+                camRenderY = Math.floor(renderSnapshot.cameraY(renderAlpha));
+            }
+            worldTransform.setToTranslation(vw / 2.0, vh / 2.0);
+            worldTransform.scale(zoomLevel, zoomLevel);
+            worldTransform.translate(-camRenderX, -camRenderY);
+            g.setTransform(worldTransform);
 
             if (map != null) {
+                long groundStart = profiler.begin();
                 map.drawGround(g, camera);
+                profiler.end(FrameProfiler.Zone.DRAW_GROUND, groundStart);
             }
 
-            List<DepthRenderable> renderQueue = new ArrayList<>();
+            // เก็บเฉพาะที่อยู่ในมุมกล้อง (+margin เผื่อเงา/sprite ที่ล้นกรอบ) ก่อน sort
+            double halfViewW = camera.getViewWidth() / 2.0 + RENDER_CULL_MARGIN;
+            double halfViewH = camera.getViewHeight() / 2.0 + RENDER_CULL_MARGIN;
+            double viewLeft = camRenderX - halfViewW;
+            double viewTop = camRenderY - halfViewH;
+            double viewRight = camRenderX + halfViewW;
+            double viewBottom = camRenderY + halfViewH;
 
-            if (worldObjectManager != null) {
-                for (WorldObject object : worldObjectManager.getWorldObjects()) {
-                    if (object == null) {
-                        continue;
-                    }
-                    WorldObject drawObject = object;
-                    renderQueue.add(new DepthRenderable(drawObject.getY() + drawObject.getHeight(),
-                            graphics -> drawObject.draw(graphics)));
-                }
-            }
+            renderQueue.begin();
+            int candidates = 0;
 
-            if (!npcs.isEmpty()) {
-                for (NPC npc : npcs) {
-                    if (npc == null) {
-                        continue;
-                    }
-                    NPC drawNpc = npc;
-                    renderQueue.add(new DepthRenderable(drawNpc.getPreciseY() + drawNpc.getH(),
-                            graphics -> drawNpc.draw(graphics, camera)));
-                }
+            // world objects และ NPC ถูก index ไว้ใน grid ของ Interactions อยู่แล้ว ใช้ query เฉพาะช่วงที่มองเห็น
+            if (worldObjectManager != null) {
+                candidates += worldObjectManager.getWorldObjectCount() + npcs.size();
+                worldObjectManager.getInteractionManager()
+                        .forEachInArea(viewLeft, viewTop, viewRight, viewBottom, visibleCollector);
             }
 
             if (party != null) {
-                for (Player player : party) {
-                    if (player == null) {
-                        continue;
-                    }
-                    Player drawPlayer = player;
-                    renderQueue.add(new DepthRenderable(drawPlayer.getPreciseY() + drawPlayer.getH(),
-                            graphics -> drawPlayer.draw(graphics, camera)));
+                candidates += party.size();
+                for (int i = 0; i < party.size(); i++) {
+                    submitEntity(party.get(i), viewLeft, viewTop, viewRight, viewBottom);
                 }
             }
 
-
-            renderQueue.sort(Comparator.comparingDouble(entry -> entry.depth));
-
-            for (DepthRenderable entry : renderQueue) {
-                entry.drawCommand.accept(g);
-            }
+            long sortStart = profiler.begin();
+            renderQueue.sort();
+            profiler.end(FrameProfiler.Zone.RENDER_SORT, sortStart);
+            renderDrawnCount = renderQueue.size();
+            renderCulledCount = Math.max(0, candidates - renderDrawnCount);
+            renderQueue.draw(g, camera, interpolateRendering ? renderSnapshot : null, renderAlpha);
 
             if (map != null) {
+                long decorationsStart = profiler.begin();
                 map.drawDecorations(g, camera);
+                profiler.end(FrameProfiler.Zone.DRAW_DECORATIONS, decorationsStart);
                 if (debugMode) {
                     map.drawCollisionOverlay(g, camera);
                     map.drawZoneOverlay(g, camera);
                 }
             }
         } finally {
-            g.setTransform(oldTransform);
+            g.setTransform(IDENTITY_TRANSFORM);
         }
 
     }
 
+    private void submitEntity(Entity entity, double viewLeft, double viewTop, double viewRight, double viewBottom) {
+        if (entity == null) {
+            return;
+        }
+        double x = entity.getPreciseX();
+        double y = entity.getPreciseY();
+        double bottom = y + entity.getH();
+        if (x + entity.getW() < viewLeft || x > viewRight || bottom < viewTop || y > viewBottom) {
+            return;
+        }
+        renderQueue.add(entity, bottom);
+    }
+
     void drawHUD(Graphics2D g) {
         g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        long allocStart = telemetry.begin();
         hudRenderer.draw(g, highlightedInteractable, dialogManager.isActive(), fastTravelMenuOpen);
+        telemetry.end(GcTelemetry.Phase.HUD_DRAW, allocStart);
         if (skillMenu.isOpen()) {
             skillMenu.draw(g);
         }
@@ -1590,6 +1923,45 @@ public class GamePanel extends JPanel {
         if (dialogManager.isActive()) {
             drawDialog(g);
         }
+        if (debugMode) {
+            drawRenderStats(g);
+        }
+    }
+
+    private void drawRenderStats(Graphics2D g) {
+        if (statsFont == null) {
+            statsFont = FontCustom.MainFont.deriveFont(Font.PLAIN, 14);
+        }
+        g.setFont(statsFont);
+        FontMetrics metrics = g.getFontMetrics();
+        if (renderStatsText == null || renderStatsDrawn != renderDrawnCount || renderStatsCulled != renderCulledCount) {
+            renderStatsDrawn = renderDrawnCount;
+            renderStatsCulled = renderCulledCount;
+            renderStatsText = "Drawn: " + renderDrawnCount + "  Culled: " + renderCulledCount;
+        }
+        drawStatsLine(g, metrics, renderStatsText, 20);
+        AssetCache<BufferedImage> images = ResourceLoader.getImageCache();
+        if (imageStatsText == null || imageStatsHits != images.getHits() || imageStatsMisses != images.getMisses()
+                || imageStatsEvictions != images.getEvictions() || imageStatsResident != images.getResidentBytes() || imageStatsBudget != images.getBudgetBytes()) {
+            imageStatsHits = images.getHits();
+            imageStatsMisses = images.getMisses();
+            imageStatsEvictions = images.getEvictions();
+            imageStatsResident = images.getResidentBytes();
+            imageStatsBudget = images.getBudgetBytes();
+            imageStatsText = String.format(Locale.ROOT, "Images: %d hit  %d miss  %d evict  %.1f/%d MB",
+                    imageStatsHits, imageStatsMisses, imageStatsEvictions, imageStatsResident / (1024.0 * 1024.0),
+                    imageStatsBudget / (1024 * 1024));
+        }
+        drawStatsLine(g, metrics, imageStatsText, 20 + metrics.getHeight() + 6);
+    }
+
+    private void drawStatsLine(Graphics2D g, FontMetrics metrics, String text, int y) {
+        int width = metrics.stringWidth(text);
+        int x = vw - width - 12;
+        g.setColor(STATS_BACKGROUND);
+        g.fillRect(x - 6, y - metrics.getAscent() - 2, width + 12, metrics.getHeight() + 4);
+        g.setColor(Color.WHITE);
+        g.drawString(text, x, y);
     }
 
     private void drawFastTravelMenu(Graphics2D g) {
@@ -1814,13 +2186,14 @@ public class GamePanel extends JPanel {
 
     enum State {TITLE, SAVE_MENU, WORLD, BATTLE}
 
-    private static final class DepthRenderable {
-        final double depth;
-        final Consumer<Graphics2D> drawCommand;
-
-        DepthRenderable(double depth, Consumer<Graphics2D> drawCommand) {
-            this.depth = depth;
-            this.drawCommand = drawCommand;
+    private final class VisibleCollector implements WorldObjectManager.AreaVisitor {
+        @Override
+        public void visit(WorldObjectManager.Interactable interactable) {
+            if (interactable instanceof WorldObject object) {
+                renderQueue.add(object, object.getY() + object.getHeight());
+            } else if (interactable instanceof Entity entity) {
+                renderQueue.add(entity, entity.getPreciseY() + entity.getH());
+            }
         }
     }
 
@@ -0,0 +1,79 @@
+import java.util.Random;
+
+/**
+ * Seeded random streams for game logic. Each subsystem draws from its own {@link Stream}, so an extra
+ * ambush roll never shifts which enemies the encounter generator picks. Every new game starts a session
+ * whose seed is derived from the master seed; the same session seed plus the same input replays a
+ * session exactly (see {@link InputRecorder}).
+ * <p>
+ * Streams are reseeded in place, so holders may keep the {@link Random} returned by {@link #stream}.
+ */
+final class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    enum Stream {
+        AMBUSH,
+        ENCOUNTER,
+        BATTLE
+    }
+
+    private final Random[] streams = new Random[Stream.values().length];
+    private long masterSeed;
+    private long sessionCount;
+    private long sessionSeed;
+
+    GameRandom(long masterSeed) {
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new Random();
+        }
+        setMasterSeed(masterSeed);
+    }
+
+    /**
+     * Restarts the run from {@code masterSeed} (e.g. {@code -Dgame.seed}); later sessions derive from it.
+     */
+    void setMasterSeed(long masterSeed) {
+        this.masterSeed = masterSeed;
+        sessionCount = 0;
+        startSession(mix(masterSeed));
+    }
+
+    Random stream(Stream stream) {
+        return streams[stream.ordinal()];
+    }
+
+    long getMasterSeed() {
+        return masterSeed;
+    }
+
+    long getSessionSeed() {
+        return sessionSeed;
+    }
+
+    /**
+     * Starts the next session of this run with a seed derived from the master seed and returns it.
+     */
+    long newSession() {
+        sessionCount++;
+        long seed = mix(masterSeed + sessionCount * GOLDEN_GAMMA);
+        startSession(seed);
+        return seed;
+    }
+
+    /**
+     * Reseeds every stream from {@code seed}, e.g. the seed stored in a recording.
+     */
+    void startSession(long seed) {
+        sessionSeed = seed;
+        for (int i = 0; i < streams.length; i++) {
+            streams[i].setSeed(mix(seed + (i + 1) * GOLDEN_GAMMA));
+        }
+    }
+
+    // SplitMix64 finalizer: seed ที่ใกล้กัน (เช่น ordinal ติดกัน) ได้ stream ที่ไม่สัมพันธ์กัน
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
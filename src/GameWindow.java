@@ -15,12 +15,23 @@ public class GameWindow {
     private final GraphicsDevice graphicsDevice;
 
     public GameWindow() {
+        this(false);
+    }
+
+    /**
+     * @param activeRendering draw from the game loop through a BufferStrategy canvas instead of Swing repaints
+     */
+    public GameWindow(boolean activeRendering) {
         GraphicsEnvironment environment = GraphicsEnvironment.getLocalGraphicsEnvironment();
         graphicsDevice = environment.getDefaultScreenDevice();
         frame = new JFrame("Solstice Warriors DEMO");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         panel = new GamePanel(virtualWidth, virtualHeight);
         panel.setFullscreenToggleHandler(this::toggleFullscreen);
+        if (activeRendering) {
+            panel.enableActiveRendering(new ActiveRenderSurface(virtualWidth, virtualHeight));
+        }
+        panel.setRenderFpsCap(displayRefreshRate());
         frame.setContentPane(panel);
         frame.setSize(960, 640);
         frame.setLocationRelativeTo(null);
@@ -86,6 +97,17 @@ public class GameWindow {
         SwingUtilities.invokeLater(panel::requestFocusInWindow);
     }
 
+    // cap การวาดไว้ที่ refresh rate ของจอ (วาดเกินกว่านั้นไม่มีใครเห็น); ไม่รู้ค่าให้ใช้ 60
+    private int displayRefreshRate() {
+        if (graphicsDevice != null) {
+            DisplayMode mode = graphicsDevice.getDisplayMode();
+            if (mode != null && mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return mode.getRefreshRate();
+            }
+        }
+        return 60;
+    }
+
     private void toggleFullscreen() {
         if (SwingUtilities.isEventDispatchThread()) {
             setFullscreen(!fullscreen);
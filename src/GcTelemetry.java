@@ -0,0 +1,505 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.awt.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation and GC telemetry for the game loop. Phases are bracketed like {@link FrameProfiler} zones
+ * but measure bytes allocated by the calling thread ({@code ThreadMXBean.getCurrentThreadAllocatedBytes}).
+ * GC pauses arrive as {@code GarbageCollectorMXBean} notifications and are matched against frames that
+ * overran the spike threshold, so a hitch can be told apart from a GC pause. Concurrent cycles (ZGC,
+ * Shenandoah) are counted and logged with their duration but not added to pause time.
+ * <p>
+ * Once a second the game loop folds everything into a summary that the overlay shows and, when a log
+ * file is set, appends as one JSON line. Lines are written by a daemon thread; the log rolls over at
+ * {@link #LOG_MAX_BYTES} keeping {@link #LOG_KEEP} old files.
+ */
+final class GcTelemetry {
+    private static final long LOG_MAX_BYTES = 1L << 20;
+    private static final int LOG_KEEP = 3;
+    private static final int LOG_QUEUE_SIZE = 256;
+    private static final int RECENT_SIZE = 16;
+    // notification ของ GC มาถึงช้ากว่าจุดจบ pause จริงเล็กน้อย เผื่อช่วงนี้ตอนจับคู่กับ frame
+    private static final long NOTIFY_SLACK_NANOS = 5_000_000L;
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color OVERLAY_BAD = new Color(230, 80, 70);
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+    static final int OVERLAY_HEIGHT = 98;
+
+    enum Phase {
+        UPDATE_LOGIC("updateLogic"),
+        DRAW_WORLD("drawWorld"),
+        HUD_DRAW("HudRenderer.draw"),
+        BATTLE_DRAW("BattleScreen.draw");
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final long spikeThresholdNanos;
+    private final PhaseStats[] phases = new PhaseStats[Phase.values().length];
+    private final ConcurrentLinkedQueue<GcEvent> gcInbox = new ConcurrentLinkedQueue<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::onGcNotification;
+    private volatile boolean enabled;
+
+    // state ต่อไปนี้ใช้เฉพาะบน game loop thread
+    private final long[] spikeStart = new long[RECENT_SIZE];
+    private final long[] spikeEnd = new long[RECENT_SIZE];
+    private final boolean[] spikeMatched = new boolean[RECENT_SIZE];
+    private int spikeCursor;
+    private final long[] gcStart = new long[RECENT_SIZE];
+    private final long[] gcEnd = new long[RECENT_SIZE];
+    private int gcCursor;
+    private long windowStart;
+    private long windowLoopBytes;
+    private int windowFrames;
+    private int windowSpikes;
+    private int windowGcSpikes;
+    private int windowGcCount;
+    private long windowGcPauseNanos;
+    private final long[] windowPhaseBytes = new long[Phase.values().length];
+    private final long[] windowPhaseSamples = new long[Phase.values().length];
+
+    // สรุปรอบล่าสุด (อ่านจาก thread ที่วาด overlay)
+    private volatile Summary summary = new Summary();
+
+    private Path logFile;
+    private BlockingQueue<String> logQueue;
+    private Thread logThread;
+
+    GcTelemetry(long spikeThresholdNanos) {
+        this.spikeThresholdNanos = spikeThresholdNanos;
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = null;
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            allocationBean = (com.sun.management.ThreadMXBean) bean;
+            if (allocationBean.isThreadAllocatedMemorySupported()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                allocationBean = null;
+            }
+        }
+        threadBean = allocationBean;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new PhaseStats();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled == this.enabled) {
+            return;
+        }
+        if (enabled) {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter) {
+                    NotificationEmitter emitter = (NotificationEmitter) gc;
+                    emitter.addNotificationListener(gcListener, null, null);
+                    emitters.add(emitter);
+                }
+            }
+            windowStart = 0L;
+        } else {
+            for (NotificationEmitter emitter : emitters) {
+                try {
+                    emitter.removeNotificationListener(gcListener);
+                } catch (Exception ignored) {
+                }
+            }
+            emitters.clear();
+            gcInbox.clear();
+        }
+        this.enabled = enabled;
+    }
+
+    boolean isLogging() {
+        return logFile != null;
+    }
+
+    /**
+     * Appends a JSON line per second (and per GC pause) to {@code file} while enabled. Call once, before
+     * the loop starts.
+     */
+    void setLogFile(Path file) {
+        if (logThread != null || file == null) {
+            return;
+        }
+        logFile = file;
+        logQueue = new ArrayBlockingQueue<>(LOG_QUEUE_SIZE);
+        logThread = new Thread(this::writeLog, "TelemetryLog");
+        logThread.setDaemon(true);
+        logThread.start();
+    }
+
+    void close() {
+        setEnabled(false);
+        if (logThread != null) {
+            logThread.interrupt();
+            try {
+                logThread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logThread = null;
+        }
+    }
+
+    /**
+     * Returns the calling thread's allocated-bytes counter, or -1 when disabled or unsupported.
+     */
+    long begin() {
+        return enabled && threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : -1L;
+    }
+
+    void end(Phase phase, long startBytes) {
+        if (startBytes < 0L) {
+            return;
+        }
+        phases[phase.ordinal()].record(threadBean.getCurrentThreadAllocatedBytes() - startBytes);
+    }
+
+    /**
+     * Called by the game loop for each presented frame with the time since the previous one.
+     */
+    void onFrame(long now, long frameNanos) {
+        if (!enabled) {
+            return;
+        }
+        if (windowStart == 0L) {
+            startWindow(now);
+        }
+        GcEvent event;
+        while ((event = gcInbox.poll()) != null) {
+            acceptGc(event);
+        }
+        windowFrames++;
+        if (frameNanos > spikeThresholdNanos) {
+            windowSpikes++;
+            int slot = spikeCursor++ % RECENT_SIZE;
+            spikeStart[slot] = now - frameNanos;
+            spikeEnd[slot] = now;
+            spikeMatched[slot] = false;
+            for (int i = 0; i < Math.min(gcCursor, RECENT_SIZE); i++) {
+                if (overlaps(gcStart[i], gcEnd[i], spikeStart[slot], spikeEnd[slot])) {
+                    spikeMatched[slot] = true;
+                    windowGcSpikes++;
+                    break;
+                }
+            }
+        }
+        if (now - windowStart >= 1_000_000_000L) {
+            closeWindow(now);
+        }
+    }
+
+    void drawOverlay(Graphics2D g, int x, int y) {
+        if (!enabled) {
+            return;
+        }
+        Summary s = summary;
+        g.setColor(OVERLAY_BACKGROUND);
+        g.fillRect(x, y, FrameProfiler.OVERLAY_WIDTH, OVERLAY_HEIGHT);
+        g.setFont(OVERLAY_FONT);
+        int tx = x + 8;
+        int ty = y + 14;
+        g.setColor(Color.WHITE);
+        if (threadBean == null) {
+            g.drawString("allocation counters unsupported", tx, ty);
+        } else {
+            g.drawString(String.format(Locale.ROOT, "loop alloc %7.2f MB/s", s.loopMegabytesPerSecond), tx, ty);
+        }
+        for (Phase phase : Phase.values()) {
+            ty += 13;
+            g.drawString(String.format(Locale.ROOT, "%-20s %8.1f KB", phase.label, s.phaseKilobytes[phase.ordinal()]), tx, ty);
+        }
+        ty += 13;
+        g.drawString(String.format(Locale.ROOT, "GC %d/s  pause %.1f ms  last %.1f ms", s.gcCount, s.gcPauseMillis, s.lastGcPauseMillis), tx, ty);
+        ty += 13;
+        g.setColor(s.gcSpikes > 0 ? OVERLAY_BAD : Color.WHITE);
+        g.drawString(String.format(Locale.ROOT, "spikes %d/s  with GC %d  (total %d/%d)", s.spikes, s.gcSpikes, s.totalGcSpikes, s.totalSpikes), tx, ty);
+    }
+
+    private void startWindow(long now) {
+        windowStart = now;
+        windowLoopBytes = threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0L;
+        windowFrames = 0;
+        windowSpikes = 0;
+        windowGcSpikes = 0;
+        windowGcCount = 0;
+        windowGcPauseNanos = 0L;
+        for (int i = 0; i < phases.length; i++) {
+            windowPhaseBytes[i] = phases[i].bytes;
+            windowPhaseSamples[i] = phases[i].samples;
+        }
+    }
+
+    private void closeWindow(long now) {
+        Summary previous = summary;
+        Summary s = new Summary();
+        double seconds = (now - windowStart) / 1_000_000_000.0;
+        if (threadBean != null) {
+            s.loopMegabytesPerSecond = (threadBean.getCurrentThreadAllocatedBytes() - windowLoopBytes) / seconds / (1024.0 * 1024.0);
+        }
+        for (int i = 0; i < phases.length; i++) {
+            long samples = phases[i].samples - windowPhaseSamples[i];
+            long bytes = phases[i].bytes - windowPhaseBytes[i];
+            s.phaseKilobytes[i] = samples == 0 ? 0.0 : bytes / (double) samples / 1024.0;
+        }
+        s.frames = windowFrames;
+        s.gcCount = windowGcCount;
+        s.gcPauseMillis = windowGcPauseNanos / 1_000_000.0;
+        s.lastGcPauseMillis = previous.lastGcPauseMillis;
+        int lastGc = (gcCursor - 1) % RECENT_SIZE;
+        if (gcCursor > 0) {
+            s.lastGcPauseMillis = (gcEnd[lastGc] - gcStart[lastGc]) / 1_000_000.0;
+        }
+        s.spikes = windowSpikes;
+        s.gcSpikes = windowGcSpikes;
+        s.totalSpikes = previous.totalSpikes + windowSpikes;
+        s.totalGcSpikes = previous.totalGcSpikes + windowGcSpikes;
+        summary = s;
+
+        StringBuilder line = new StringBuilder(256);
+        line.append("{\"type\":\"frame\",\"time\":").append(System.currentTimeMillis())
+                .append(",\"fps\":").append(s.frames)
+                .append(",\"loopAllocMBps\":").append(format(s.loopMegabytesPerSecond));
+        for (Phase phase : Phase.values()) {
+            line.append(",\"").append(phase.label).append("KB\":").append(format(s.phaseKilobytes[phase.ordinal()]));
+        }
+        line.append(",\"gcCount\":").append(s.gcCount)
+                .append(",\"gcPauseMs\":").append(format(s.gcPauseMillis))
+                .append(",\"spikes\":").append(s.spikes)
+                .append(",\"gcSpikes\":").append(s.gcSpikes)
+                .append('}');
+        log(line.toString());
+        startWindow(now);
+    }
+
+    private void acceptGc(GcEvent event) {
+        windowGcCount++;
+        if (event.concurrent) {
+            // รอบ concurrent ของ ZGC/Shenandoah ทำงานคู่กับ thread ของเกม ไม่ใช่ pause: log ไว้แต่ไม่นับ
+            log("{\"type\":\"gc\",\"time\":" + System.currentTimeMillis()
+                    + ",\"collector\":\"" + escape(event.collector) + "\""
+                    + ",\"action\":\"" + escape(event.action) + "\""
+                    + ",\"cause\":\"" + escape(event.cause) + "\""
+                    + ",\"durationMs\":" + format(event.pauseNanos / 1_000_000.0) + "}");
+            return;
+        }
+        windowGcPauseNanos += event.pauseNanos;
+        int slot = gcCursor++ % RECENT_SIZE;
+        gcEnd[slot] = event.receivedAt;
+        gcStart[slot] = event.receivedAt - event.pauseNanos - NOTIFY_SLACK_NANOS;
+        // spike ที่เกิดก่อน notification มาถึงก็นับว่าเกิดจาก GC ได้
+        for (int i = 0; i < Math.min(spikeCursor, RECENT_SIZE); i++) {
+            if (!spikeMatched[i] && overlaps(gcStart[slot], gcEnd[slot], spikeStart[i], spikeEnd[i])) {
+                spikeMatched[i] = true;
+                windowGcSpikes++;
+            }
+        }
+        log("{\"type\":\"gc\",\"time\":" + System.currentTimeMillis()
+                + ",\"collector\":\"" + escape(event.collector) + "\""
+                + ",\"action\":\"" + escape(event.action) + "\""
+                + ",\"cause\":\"" + escape(event.cause) + "\""
+                + ",\"pauseMs\":" + format(event.pauseNanos / 1_000_000.0) + "}");
+    }
+
+    private static boolean overlaps(long aStart, long aEnd, long bStart, long bEnd) {
+        return aStart < bEnd && bStart < aEnd;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Whether a notification reports a concurrent collection cycle rather than a stop-the-world pause.
+     * ZGC and Shenandoah publish their cycles on a separate "... Cycles" bean with the action
+     * "end of GC cycle"; the pauses come from the "... Pauses" bean as "end of GC pause".
+     */
+    static boolean isConcurrentCycle(String collector, String action) {
+        return (action != null && action.endsWith("cycle"))
+                || (collector != null && collector.endsWith("Cycles"));
+    }
+
+    // เรียกจาก thread ของ JMX: แค่ส่งต่อเข้า queue ให้ game loop จัดการ
+    private void onGcNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long pauseNanos = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+        gcInbox.offer(new GcEvent(System.nanoTime(), pauseNanos,
+                info.getGcName(), info.getGcAction(), info.getGcCause(),
+                isConcurrentCycle(info.getGcName(), info.getGcAction())));
+    }
+
+    private void log(String line) {
+        if (logQueue != null) {
+            // queue เต็มแปลว่าดิสก์ช้า ทิ้งบรรทัดดีกว่าให้ game loop รอ
+            logQueue.offer(line);
+        }
+    }
+
+    private void writeLog() {
+        BufferedWriter writer = null;
+        try {
+            Path parent = logFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            long size = Files.exists(logFile) ? Files.size(logFile) : 0L;
+            writer = openLog();
+            while (!Thread.currentThread().isInterrupted()) {
+                String line;
+                try {
+                    line = logQueue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (line == null) {
+                    writer.flush();
+                    continue;
+                }
+                if (size + line.length() + 1 > LOG_MAX_BYTES) {
+                    writer.close();
+                    rollLogs();
+                    writer = openLog();
+                    size = 0L;
+                }
+                writer.write(line);
+                writer.newLine();
+                size += line.length() + 1;
+            }
+            String line;
+            while ((line = logQueue.poll()) != null) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Telemetry log disabled: " + e.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private BufferedWriter openLog() throws IOException {
+        return Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // telemetry.jsonl -> telemetry.jsonl.1 -> ... -> telemetry.jsonl.LOG_KEEP (ไฟล์เก่าสุดถูกทิ้ง)
+    private void rollLogs() throws IOException {
+        String name = logFile.getFileName().toString();
+        Files.deleteIfExists(logFile.resolveSibling(name + "." + LOG_KEEP));
+        for (int i = LOG_KEEP - 1; i >= 1; i--) {
+            Path from = logFile.resolveSibling(name + "." + i);
+            if (Files.exists(from)) {
+                Files.move(from, logFile.resolveSibling(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(logFile, logFile.resolveSibling(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // แต่ละ phase มีผู้เขียนทีละ thread เดียว (logic บน game loop, การวาดบน thread ที่วาด)
+    private static final class PhaseStats {
+        volatile long bytes;
+        volatile long samples;
+
+        void record(long allocated) {
+            bytes += allocated;
+            samples = samples + 1;
+        }
+    }
+
+    private static final class GcEvent {
+        final long receivedAt;
+        final long pauseNanos;
+        final String collector;
+        final String action;
+        final String cause;
+        // duration เป็นของรอบ concurrent ไม่ใช่เวลาที่ thread ของเกมถูกหยุด
+        final boolean concurrent;
+
+        GcEvent(long receivedAt, long pauseNanos, String collector, String action, String cause, boolean concurrent) {
+            this.receivedAt = receivedAt;
+            this.pauseNanos = pauseNanos;
+            this.collector = collector;
+            this.action = action;
+            this.cause = cause;
+            this.concurrent = concurrent;
+        }
+    }
+
+    private static final class Summary {
+        final double[] phaseKilobytes = new double[Phase.values().length];
+        double loopMegabytesPerSecond;
+        int frames;
+        int gcCount;
+        double gcPauseMillis;
+        double lastGcPauseMillis;
+        int spikes;
+        int gcSpikes;
+        long totalSpikes;
+        long totalGcSpikes;
+    }
+}
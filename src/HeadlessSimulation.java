@@ -0,0 +1,246 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Runs the game logic without a window, audio device or keyboard: a {@link GamePanel} built with an
+ * unbound {@link InputManager} and {@link AudioSink#SILENT}, driven by a {@link ScriptedInput} and
+ * stepped back to back at the fixed logic timestep as fast as the CPU allows. Nothing is painted.
+ * <p>
+ * Used for soak tests and for measuring pure logic throughput:
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... HeadlessSimulation --hours=1000 [--script=walk.txt] [--seed=1] [--verbose]
+ * java ... HeadlessSimulation --replay=session.txt
+ * </pre>
+ * {@code --record=<file>} writes the run as an {@link InputRecorder} recording; {@code --replay=<file>}
+ * plays one back from its seed and checks every recorded state checksum. Exits with status 1 when a
+ * replay diverges or a world invariant breaks (party lost, leader outside the map).
+ */
+final class HeadlessSimulation {
+    // script ตั้งต้นวนทุก 30 นาทีของเวลาในเกม
+    private static final long WANDER_CYCLE_STEPS = 30 * 60 * 60;
+    private static final long DEFAULT_SEED = 1L;
+    private static final String USAGE = "Usage: HeadlessSimulation [--hours=N | --steps=N]"
+            + " [--script=file | --replay=file] [--record=file] [--seed=N] [--verbose]";
+
+    private final GamePanel game;
+    private final InputManager input;
+    private final ScriptedInput script;
+    private final long[] stepsPerState = new long[GamePanel.State.values().length];
+    private long step;
+    private long battles;
+    private long restarts;
+    private long checksMatched;
+    private final long[] expectedChecksum = new long[1];
+    private GamePanel.State lastState;
+
+    HeadlessSimulation(ScriptedInput script) {
+        this(script, DEFAULT_SEED, null);
+    }
+
+    /**
+     * @param recordTo file to record this run's input to, or null
+     */
+    HeadlessSimulation(ScriptedInput script, long masterSeed, Path recordTo) {
+        this.input = new InputManager();
+        this.script = script;
+        this.game = new GamePanel(640, 360, input, AudioSink.SILENT);
+        game.random.setMasterSeed(masterSeed);
+        if (recordTo != null) {
+            game.startRecording(recordTo);
+        }
+        game.startNewGame(null);
+        if (script.hasSeed()) {
+            // เล่นซ้ำ: ใช้ seed ของ session ที่บันทึกไว้แทน
+            game.random.startSession(script.getSeed());
+        }
+        lastState = game.state;
+    }
+
+    GamePanel getGame() {
+        return game;
+    }
+
+    long getStepCount() {
+        return step;
+    }
+
+    double getSimulatedSeconds() {
+        return step * game.LOGIC_DT;
+    }
+
+    long getBattleCount() {
+        return battles;
+    }
+
+    long getRestartCount() {
+        return restarts;
+    }
+
+    long getStepsIn(GamePanel.State state) {
+        return stepsPerState[state.ordinal()];
+    }
+
+    long getChecksMatched() {
+        return checksMatched;
+    }
+
+    void run(long steps) {
+        for (long i = 0; i < steps; i++) {
+            step();
+        }
+    }
+
+    void step() {
+        script.apply(step, input);
+        if (game.state == GamePanel.State.TITLE || game.state == GamePanel.State.SAVE_MENU) {
+            // หลังแพ้/จบเกมจะกลับไปหน้า title ซึ่งต้องพิมพ์ชื่อเซฟใน dialog; headless เริ่มเกมใหม่ให้เลย
+            game.startNewGame(null);
+            restarts++;
+        }
+        game.updateLogic(game.LOGIC_DT);
+        GamePanel.State state = game.state;
+        if (state == GamePanel.State.BATTLE && lastState != GamePanel.State.BATTLE) {
+            battles++;
+        }
+        lastState = state;
+        stepsPerState[state.ordinal()]++;
+        if (script.getCheckCount() > 0 && script.expectedChecksum(step, expectedChecksum)) {
+            long actual = game.stateChecksum();
+            if (actual != expectedChecksum[0]) {
+                throw new IllegalStateException("replay diverged after step " + step + ": expected "
+                        + Long.toHexString(expectedChecksum[0]) + ", got " + Long.toHexString(actual));
+            }
+            checksMatched++;
+        }
+        step++;
+        checkInvariants();
+    }
+
+    private void checkInvariants() {
+        List<Player> party = game.party;
+        if (party == null || party.isEmpty()) {
+            throw new IllegalStateException("step " + step + ": party is empty");
+        }
+        if (game.activeIndex < 0 || game.activeIndex >= party.size()) {
+            throw new IllegalStateException("step " + step + ": active index " + game.activeIndex + " out of range");
+        }
+        TileMap map = game.map;
+        if (map == null) {
+            return;
+        }
+        for (Player player : party) {
+            double x = player.getPreciseX();
+            double y = player.getPreciseY();
+            if (!Double.isFinite(x) || !Double.isFinite(y)
+                    || x < 0 || y < 0 || x > map.pixelWidth || y > map.pixelHeight) {
+                throw new IllegalStateException(String.format(Locale.ROOT,
+                        "step %d: %s left the map at (%.1f, %.1f)", step, player.getName(), x, y));
+            }
+        }
+    }
+
+    private static <T> T parseNumber(String arg, String prefix, Function<String, T> parser) {
+        try {
+            return parser.apply(arg.substring(prefix.length()).trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Not a number: " + arg);
+            System.err.println(USAGE);
+            System.exit(2);
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        double hours = -1.0;
+        long steps = -1;
+        String scriptPath = null;
+        String replayPath = null;
+        String recordPath = null;
+        long seed = DEFAULT_SEED;
+        boolean verbose = false;
+        for (String arg : args) {
+            if (arg.startsWith("--hours=")) {
+                hours = parseNumber(arg, "--hours=", Double::parseDouble);
+            } else if (arg.startsWith("--steps=")) {
+                steps = parseNumber(arg, "--steps=", Long::parseLong);
+            } else if (arg.startsWith("--script=")) {
+                scriptPath = arg.substring("--script=".length());
+            } else if (arg.startsWith("--replay=")) {
+                replayPath = arg.substring("--replay=".length());
+            } else if (arg.startsWith("--record=")) {
+                recordPath = arg.substring("--record=".length());
+            } else if (arg.startsWith("--seed=")) {
+                seed = parseNumber(arg, "--seed=", Long::parseLong);
+            } else if (arg.equals("--verbose")) {
+                verbose = true;
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+
+        // log ของเกม (encounter, returned to world ...) ท่วม console ในการรันยาวๆ
+        PrintStream report = System.out;
+        if (!verbose) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        ScriptedInput script;
+        if (replayPath != null) {
+            script = ScriptedInput.load(Paths.get(replayPath));
+        } else if (scriptPath != null) {
+            script = ScriptedInput.load(Paths.get(scriptPath));
+        } else {
+            script = ScriptedInput.wander(seed, WANDER_CYCLE_STEPS);
+        }
+        HeadlessSimulation simulation = new HeadlessSimulation(script, seed,
+                recordPath != null ? Paths.get(recordPath) : null);
+        if (steps < 0) {
+            if (hours < 0 && replayPath != null) {
+                steps = script.getLastStep() + 1;
+            } else {
+                steps = Math.round((hours < 0 ? 1.0 : hours) * 3600.0 / simulation.game.LOGIC_DT);
+            }
+        }
+
+        long reportEvery = Math.max(1L, Math.round(3600.0 / simulation.game.LOGIC_DT));
+        long start = System.nanoTime();
+        try {
+            for (long done = 0; done < steps; ) {
+                long chunk = Math.min(reportEvery, steps - done);
+                simulation.run(chunk);
+                done += chunk;
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                report.printf(Locale.ROOT, "%8.1f h simulated  %6.1f s wall  %,.0f steps/s%n",
+                        simulation.getSimulatedSeconds() / 3600.0, elapsed, done / elapsed);
+            }
+        } catch (RuntimeException e) {
+            report.println("Simulation failed: " + e.getMessage());
+            e.printStackTrace(report);
+            System.exit(1);
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        report.printf(Locale.ROOT, "Simulated %.1f h (%d steps) in %.1f s: %,.0f steps/s, %.0fx real time%n",
+                simulation.getSimulatedSeconds() / 3600.0, simulation.getStepCount(), elapsed,
+                simulation.getStepCount() / elapsed, simulation.getSimulatedSeconds() / elapsed);
+        report.printf(Locale.ROOT, "battles=%d restarts=%d world=%d battle=%d steps%n",
+                simulation.getBattleCount(), simulation.getRestartCount(),
+                simulation.getStepsIn(GamePanel.State.WORLD), simulation.getStepsIn(GamePanel.State.BATTLE));
+        if (script.getCheckCount() > 0) {
+            report.printf(Locale.ROOT, "replay matched %d/%d checksums, final state %016x%n",
+                    simulation.getChecksMatched(), script.getCheckCount(), simulation.game.stateChecksum());
+        }
+        simulation.game.stop();
+        System.exit(0);
+    }
+}
@@ -7,13 +7,27 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class InputManager {
     private final JPanel panel;
     private final Set<String> keysPressed = new HashSet<>();
     private final Set<String> keysConsumed = new HashSet<>();
     private final Map<String, Runnable> oneShot = new HashMap<>();
-
+    // นับทุกครั้งที่มีกด/ปล่อยปุ่ม ให้ game loop รู้ว่าหน้าจอนิ่งๆ ต้องวาดใหม่หรือไม่
+    private volatile int changeCount;
+    // event จาก EDT รอไว้จนต้น logic step ถัดไป ทุก step จึงเห็น input ชุดเดียวกันตลอด step (และบันทึก/เล่นซ้ำได้)
+    private final ConcurrentLinkedQueue<KeyChange> pending = new ConcurrentLinkedQueue<>();
+    private InputRecorder recorder;
+
+
+    /**
+     * Input with no Swing bindings; keys only change through {@link #press} / {@link #release}, e.g. from
+     * a {@link ScriptedInput} in headless runs.
+     */
+    InputManager() {
+        this.panel = null;
+    }
 
     public InputManager(JPanel p) {
         this.panel = p;
@@ -26,10 +40,9 @@ public class InputManager {
             // SHIFT
             if (code == KeyEvent.VK_SHIFT) {
                 if (e.getID() == KeyEvent.KEY_PRESSED) {
-                    keysPressed.add("SHIFT");
+                    enqueue("SHIFT", true);
                 } else if (e.getID() == KeyEvent.KEY_RELEASED) {
-                    keysPressed.remove("SHIFT");
-                    keysConsumed.remove("SHIFT");
+                    enqueue("SHIFT", false);
                 }
             }
 
@@ -63,6 +76,7 @@ public class InputManager {
         registerKey(KeyEvent.VK_0, "0");
         registerKey(KeyEvent.VK_TAB, "TAB");
         registerKey(KeyEvent.VK_F11, "F11");
+        registerKey(KeyEvent.VK_F3, "F3");
 
         // Control keys
         registerKey(KeyEvent.VK_ENTER, "ENTER");
@@ -90,24 +104,93 @@ public class InputManager {
 
         am.put("pressed_" + name, new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                keysPressed.add(name);
-                Runnable r = oneShot.remove(name);
-                if (r != null) r.run();
+                enqueue(name, true);
             }
         });
 
         am.put("released_" + name, new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                keysPressed.remove(name);
-                keysConsumed.remove(name);
+                enqueue(name, false);
             }
         });
     }
 
+    private void enqueue(String name, boolean down) {
+        changeCount++;
+        pending.add(new KeyChange(name, down));
+    }
+
+    /**
+     * Applies key events that arrived from Swing since the previous call. The game loop calls this at
+     * the start of every logic step.
+     */
+    void beginStep() {
+        KeyChange change;
+        while ((change = pending.poll()) != null) {
+            if (change.down) {
+                press(change.key);
+            } else {
+                release(change.key);
+            }
+        }
+    }
+
+    void press(String name) {
+        changeCount++;
+        keysPressed.add(name);
+        if (recorder != null) {
+            recorder.onKey(name, true);
+        }
+        Runnable r = oneShot.remove(name);
+        if (r != null) r.run();
+    }
+
+    void release(String name) {
+        changeCount++;
+        keysPressed.remove(name);
+        keysConsumed.remove(name);
+        if (recorder != null) {
+            recorder.onKey(name, false);
+        }
+    }
+
+    void releaseAll() {
+        changeCount++;
+        for (String key : keysPressed.toArray(new String[0])) {
+            release(key);
+        }
+        keysConsumed.clear();
+    }
+
+    /**
+     * Marks a held key as already consumed, as if a previous {@link #consumeIfPressed} had taken it.
+     */
+    void markConsumed(String name) {
+        if (keysPressed.contains(name)) {
+            keysConsumed.add(name);
+        }
+    }
+
+    Set<String> getHeldKeys() {
+        return new HashSet<>(keysPressed);
+    }
+
+    boolean isConsumed(String name) {
+        return keysConsumed.contains(name);
+    }
+
+    void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
     public void bindKey(String key, Runnable action) {
         oneShot.put(key, action);
     }
 
+    int getChangeCount() {
+        return changeCount;
+    }
+
     public void update() {
         keysConsumed.retainAll(keysPressed);
     }
@@ -127,4 +210,14 @@ public class InputManager {
         keysConsumed.add(k);
         return true;
     }
+
+    private static final class KeyChange {
+        final String key;
+        final boolean down;
+
+        KeyChange(String key, boolean down) {
+            this.key = key;
+            this.down = down;
+        }
+    }
 }
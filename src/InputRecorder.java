@@ -0,0 +1,123 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Records the keys applied at each logic step in the {@link ScriptedInput} text format, so a session
+ * can be replayed headless ({@code HeadlessSimulation --replay=<file>}). Recording starts with a new
+ * game, and every new game starts the file over: it opens with the session seed and the keys already
+ * held at that moment, and every {@link #CHECK_INTERVAL} steps carries a checksum of the game state
+ * that the replay verifies.
+ * <p>
+ * Only called from the logic thread. Loaded saves and answers typed into Swing dialogs are not part
+ * of the recording.
+ */
+final class InputRecorder {
+    static final int CHECK_INTERVAL = 60;
+
+    private final Path file;
+    private BufferedWriter writer;
+    // step ที่กำลังรันอยู่; -1 = ส่วนที่เหลือของ step ที่เริ่มเกมใหม่ (ยังไม่นับ)
+    private long step = -1;
+
+    InputRecorder(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    boolean isRecording() {
+        return writer != null;
+    }
+
+    /**
+     * @param midStep true when the new game was started from inside a logic step (menus); the rest of
+     *                that step is not part of the recording
+     */
+    void start(long sessionSeed, InputManager input, boolean midStep) {
+        close();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            step = midStep ? -1 : 0;
+            writer.write("# input recording, replay with HeadlessSimulation --replay=" + file.getFileName());
+            writer.newLine();
+            writer.write("seed " + sessionSeed);
+            writer.newLine();
+            // ปุ่มที่ค้างอยู่ตอนเริ่ม (เช่น ENTER จากเมนู) ต้องอยู่ในสถานะเดียวกันตอนเล่นซ้ำ รวมถึงว่าถูก consume ไปแล้ว
+            Set<String> held = new TreeSet<>(input.getHeldKeys());
+            for (String key : held) {
+                writeEvent(0, "press", key);
+                if (input.isConsumed(key)) {
+                    writeEvent(0, "consume", key);
+                }
+            }
+            input.setRecorder(this);
+            System.out.println("Recording input to " + file);
+        } catch (IOException e) {
+            System.err.println("Input recording disabled: " + e.getMessage());
+            close();
+        }
+    }
+
+    void onKey(String key, boolean down) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writeEvent(Math.max(0, step), down ? "press" : "release", key);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Called by the game after every logic step.
+     */
+    void endStep(GamePanel game) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            if (step >= 0 && (step + 1) % CHECK_INTERVAL == 0) {
+                writer.write("check " + step + " " + Long.toHexString(game.stateChecksum()));
+                writer.newLine();
+                // flush เป็นระยะ ออกจากเกมด้วย System.exit ก็ยังได้ไฟล์เกือบครบ
+                writer.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        step++;
+    }
+
+    void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+            writer = null;
+        }
+    }
+
+    private void writeEvent(long at, String action, String key) throws IOException {
+        writer.write(at + " " + action + " " + key);
+        writer.newLine();
+    }
+
+    private void fail(IOException e) {
+        System.err.println("Input recording stopped: " + e.getMessage());
+        close();
+    }
+}
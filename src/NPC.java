@@ -6,6 +6,7 @@ abstract class NPC extends Entity implements WorldObjectManager.Interactable {
     private String prompt = "Talk";
     private int interactionPriority = 2;
     private boolean active = true;
+    private transient WorldObjectManager.Interactions interactionIndex;
 
     NPC(String id, String name, Sprite sprite, double x, double y, int width, int height) {
         this.id = id;
@@ -27,6 +28,14 @@ abstract class NPC extends Entity implements WorldObjectManager.Interactable {
         );
     }
 
+    @Override
+    void setPrecisePosition(double px, double py) {
+        super.setPrecisePosition(px, py);
+        if (interactionIndex != null) {
+            interactionIndex.refresh(this);
+        }
+    }
+
     void setPrompt(String prompt) {
         this.prompt = (prompt == null || prompt.isEmpty()) ? "Talk" : prompt;
     }
@@ -67,6 +76,14 @@ abstract class NPC extends Entity implements WorldObjectManager.Interactable {
 
     void setInteractionPriority(int priority) {
         interactionPriority = Math.max(0, priority);
+        if (interactionIndex != null) {
+            interactionIndex.refresh(this);
+        }
+    }
+
+    @Override
+    public void setInteractionIndex(WorldObjectManager.Interactions index) {
+        this.interactionIndex = index;
     }
 
     @Override
@@ -123,31 +123,7 @@ class Player extends Entity {
             double deltaX = vx * dt;
             double deltaY = vy * dt;
 
-            double nextX = preciseX + deltaX;
-            double nextY = preciseY + deltaY;
-
-            if (map != null) {
-                double updatedX = preciseX;
-                if (canMoveTo(map, nextX, preciseY)) {
-                    updatedX = nextX;
-                }
-
-                double updatedY = preciseY;
-                if (canMoveTo(map, updatedX, nextY)) {
-                    updatedY = nextY;
-                }
-
-                updatedX = Math.max(0.0, Math.min(map.pixelWidth - w, updatedX));
-                updatedY = Math.max(0.0, Math.min(map.pixelHeight - h, updatedY));
-
-                preciseX = updatedX;
-                preciseY = updatedY;
-            } else {
-                preciseX = nextX;
-                preciseY = nextY;
-            }
-
-            setPrecisePosition(preciseX, preciseY);
+            moveWithCollisions(map, preciseX, preciseY, deltaX, deltaY);
             if (sprite != null) {
                 sprite.setPlaying(true);
             }
@@ -185,31 +161,7 @@ class Player extends Entity {
             double deltaX = nx * moveDistance;
             double deltaY = ny * moveDistance;
 
-            double nextX = preciseX + deltaX;
-            double nextY = preciseY + deltaY;
-
-            if (map != null) {
-                double updatedX = preciseX;
-                if (canMoveTo(map, nextX, preciseY)) {
-                    updatedX = nextX;
-                }
-
-                double updatedY = preciseY;
-                if (canMoveTo(map, updatedX, nextY)) {
-                    updatedY = nextY;
-                }
-
-                updatedX = Math.max(0.0, Math.min(map.pixelWidth - w, updatedX));
-                updatedY = Math.max(0.0, Math.min(map.pixelHeight - h, updatedY));
-
-                preciseX = updatedX;
-                preciseY = updatedY;
-            } else {
-                preciseX = nextX;
-                preciseY = nextY;
-            }
-
-            setPrecisePosition(preciseX, preciseY);
+            moveWithCollisions(map, preciseX, preciseY, deltaX, deltaY);
             updateFacingFromVector(nx, ny);
             if (sprite != null) {
                 sprite.setPlaying(true);
@@ -256,35 +208,26 @@ class Player extends Entity {
         }
     }
 
-    private boolean canMoveTo(TileMap map, double px, double py) {
+    private void moveWithCollisions(TileMap map, double preciseX, double preciseY, double deltaX, double deltaY) {
         if (map == null) {
-            return true;
+            setPrecisePosition(preciseX + deltaX, preciseY + deltaY);
+            return;
         }
 
-        double left = px + COLLIDER_INSET;
-        double right = px + w - 1.0 - COLLIDER_INSET;
-        double bottom = py + h - 1.0;
-        double footTop = Math.max(py, bottom - FOOT_HEIGHT);
-        double midTop = Math.max(py, footTop - map.tileH);
-
-        left = Math.max(0.0, left);
-        right = Math.min(map.pixelWidth - 1.0, right);
-        bottom = Math.min(map.pixelHeight - 1.0, bottom);
-        footTop = Math.max(0.0, Math.min(bottom, footTop));
-        midTop = Math.max(0.0, Math.min(bottom, midTop));
-
-        if (map.isSolidAtPixel(left, footTop)
-                || map.isSolidAtPixel(right, footTop)
-                || map.isSolidAtPixel(left, bottom)
-                || map.isSolidAtPixel(right, bottom)) {
-            return false;
-        }
+        // ชนเฉพาะช่วงเท้า: กว้างเท่าตัวละครลบ inset, สูงหนึ่งแถว tile (+FOOT_HEIGHT) นับจากขอบล่าง
+        double colliderW = Math.max(1.0, w - COLLIDER_INSET * 2.0);
+        double colliderH = Math.min(h, FOOT_HEIGHT + map.tileH);
+        double left = preciseX + COLLIDER_INSET;
+        double top = preciseY + h - colliderH;
 
-        if (midTop < footTop) {
-            return !map.isSolidAtPixel(left, midTop) && !map.isSolidAtPixel(right, midTop);
-        }
+        TileCollider collider = map.getCollider();
+        collider.move(map, left, top, colliderW, colliderH, deltaX, deltaY);
 
-        return true;
+        double updatedX = preciseX + collider.getMovedX();
+        double updatedY = preciseY + collider.getMovedY();
+        updatedX = Math.max(0.0, Math.min(map.pixelWidth - w, updatedX));
+        updatedY = Math.max(0.0, Math.min(map.pixelHeight - h, updatedY));
+        setPrecisePosition(updatedX, updatedY);
     }
 
     @Override
@@ -54,6 +54,13 @@ class PlayerSkills implements Serializable {
         return true;
     }
 
+    void setStatUpgradeLevel(Stats.StatType type, int level) {
+        if (type == null) {
+            return;
+        }
+        statUpgrades.put(type, Math.max(0, level));
+    }
+
     boolean canUpgradeStat(Stats.StatType type, int maxLevel) {
         if (type == null) {
             return false;
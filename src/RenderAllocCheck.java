@@ -0,0 +1,508 @@
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.text.AttributedCharacterIterator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Allocation check for the world pass. Starts a new game headless and calls
+ * {@link GamePanel#drawWorld} {@code frames} times on a {@link NullGraphics} that keeps the transform,
+ * colour and clip state but draws nothing. That keeps the JDK's per-blit allocations (transform copies
+ * in {@code DrawImage}, clip rectangles) out of the count, so only the game's own code is measured.
+ * Bytes are read from {@code ThreadMXBean.getCurrentThreadAllocatedBytes} around each of
+ * {@link #WINDOWS} windows of frames.
+ * <p>
+ * The JVM occasionally charges a few bytes to the thread outside the game's code (deoptimization and
+ * OSR transitions after warm-up); those land in one window and do not come back, while garbage made by
+ * the world pass shows up in every window. The check therefore looks at the quietest window.
+ * <pre>
+ * java -cp ... RenderAllocCheck [--frames=N]
+ * </pre>
+ * Exits with 1 when every window allocated something, 2 when the check cannot run.
+ */
+final class RenderAllocCheck {
+    static final int WINDOWS = 10;
+
+    private RenderAllocCheck() {
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        int frames = 2000;
+        for (String arg : args) {
+            if (arg.startsWith("--frames=")) {
+                frames = Integer.parseInt(arg.substring("--frames=".length()));
+            }
+        }
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean)
+                || !bean.isThreadAllocatedMemorySupported()) {
+            System.err.println("Per-thread allocation counters are not supported by this JVM");
+            System.exit(2);
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        // เกมใหม่ (ปิด log ของเกมระหว่างสร้าง)
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        GamePanel game = new GamePanel(640, 360, new InputManager(), AudioSink.SILENT);
+        game.startNewGame(null);
+        System.setOut(console);
+
+        NullGraphics g = new NullGraphics();
+        // warm-up: JIT, chunk cache และ shadow ของ sprite ถูกสร้างในรอบแรก ๆ
+        for (int i = 0; i < Math.max(1, frames / 4); i++) {
+            game.drawWorld(g);
+        }
+        g.drawCalls = 0;
+        int windowFrames = Math.max(1, frames / WINDOWS);
+        long total = 0;
+        long quietest = Long.MAX_VALUE;
+        for (int w = 0; w < WINDOWS; w++) {
+            long startBytes = bean.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < windowFrames; i++) {
+                game.drawWorld(g);
+            }
+            long allocated = bean.getCurrentThreadAllocatedBytes() - startBytes;
+            total += allocated;
+            quietest = Math.min(quietest, allocated);
+        }
+        int measured = windowFrames * WINDOWS;
+        System.out.printf(Locale.ROOT, "%d frames, %.1f draw calls/frame, %d bytes allocated in total,"
+                        + " %d bytes in the quietest window of %d frames%n",
+                measured, g.drawCalls / (double) measured, total, quietest, windowFrames);
+        if (g.drawCalls == 0) {
+            System.err.println("drawWorld drew nothing; the check is not measuring the world pass");
+            System.exit(2);
+        }
+        if (quietest > 0) {
+            System.err.printf(Locale.ROOT, "World pass allocates: at least %.2f bytes/frame%n", quietest / (double) windowFrames);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Graphics that tracks state but draws nothing. Getters that hand out objects return copies, as the
+     * JDK's do, so a caller that uses them still shows up in the count.
+     */
+    static final class NullGraphics extends Graphics2D {
+        private static final BufferedImage SCRATCH = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+        private final AffineTransform transform = new AffineTransform();
+        private final RenderingHints hints = new RenderingHints(null);
+        private final Map<Font, FontMetrics> metrics = new HashMap<>();
+        private final FontRenderContext fontRenderContext = new FontRenderContext(null, false, false);
+        private Color color = Color.WHITE;
+        private Color background = Color.BLACK;
+        private Paint paint = Color.WHITE;
+        private Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+        private Composite composite = AlphaComposite.SrcOver;
+        private Stroke stroke = new BasicStroke();
+        private Shape clip;
+        long drawCalls;
+
+        @Override
+        public Graphics create() {
+            NullGraphics copy = new NullGraphics();
+            copy.transform.setTransform(transform);
+            copy.hints.putAll(hints);
+            copy.color = color;
+            copy.background = background;
+            copy.paint = paint;
+            copy.font = font;
+            copy.composite = composite;
+            copy.stroke = stroke;
+            copy.clip = clip;
+            return copy;
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        // ---- drawing: counted, otherwise ignored ----
+
+        @Override
+        public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                                 int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                                 int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+            drawCalls++;
+            return true;
+        }
+
+        @Override
+        public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+            drawCalls++;
+        }
+
+        @Override
+        public void draw(Shape s) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fill(Shape s) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawString(String str, int x, int y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawString(String str, float x, float y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawGlyphVector(GlyphVector g, float x, float y) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawLine(int x1, int y1, int x2, int y2) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fillRect(int x, int y, int width, int height) {
+            drawCalls++;
+        }
+
+        @Override
+        public void clearRect(int x, int y, int width, int height) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawOval(int x, int y, int width, int height) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fillOval(int x, int y, int width, int height) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+            drawCalls++;
+        }
+
+        @Override
+        public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+            drawCalls++;
+        }
+
+        @Override
+        public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+            drawCalls++;
+        }
+
+        @Override
+        public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        }
+
+        @Override
+        public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+            return false;
+        }
+
+        // ---- transform ----
+
+        @Override
+        public void translate(int x, int y) {
+            transform.translate(x, y);
+        }
+
+        @Override
+        public void translate(double tx, double ty) {
+            transform.translate(tx, ty);
+        }
+
+        @Override
+        public void rotate(double theta) {
+            transform.rotate(theta);
+        }
+
+        @Override
+        public void rotate(double theta, double x, double y) {
+            transform.rotate(theta, x, y);
+        }
+
+        @Override
+        public void scale(double sx, double sy) {
+            transform.scale(sx, sy);
+        }
+
+        @Override
+        public void shear(double shx, double shy) {
+            transform.shear(shx, shy);
+        }
+
+        @Override
+        public void transform(AffineTransform tx) {
+            transform.concatenate(tx);
+        }
+
+        @Override
+        public void setTransform(AffineTransform tx) {
+            transform.setTransform(tx);
+        }
+
+        @Override
+        public AffineTransform getTransform() {
+            return new AffineTransform(transform);
+        }
+
+        // ---- state ----
+
+        @Override
+        public Color getColor() {
+            return color;
+        }
+
+        @Override
+        public void setColor(Color c) {
+            color = c;
+            paint = c;
+        }
+
+        @Override
+        public Paint getPaint() {
+            return paint;
+        }
+
+        @Override
+        public void setPaint(Paint paint) {
+            this.paint = paint;
+            if (paint instanceof Color c) {
+                color = c;
+            }
+        }
+
+        @Override
+        public Color getBackground() {
+            return background;
+        }
+
+        @Override
+        public void setBackground(Color color) {
+            background = color;
+        }
+
+        @Override
+        public void setPaintMode() {
+        }
+
+        @Override
+        public void setXORMode(Color c1) {
+        }
+
+        @Override
+        public Font getFont() {
+            return font;
+        }
+
+        @Override
+        public void setFont(Font font) {
+            if (font != null) {
+                this.font = font;
+            }
+        }
+
+        @Override
+        public FontMetrics getFontMetrics(Font f) {
+            FontMetrics cached = metrics.get(f);
+            if (cached == null) {
+                Graphics2D scratch = SCRATCH.createGraphics();
+                try {
+                    cached = scratch.getFontMetrics(f);
+                } finally {
+                    scratch.dispose();
+                }
+                metrics.put(f, cached);
+            }
+            return cached;
+        }
+
+        @Override
+        public FontRenderContext getFontRenderContext() {
+            return fontRenderContext;
+        }
+
+        @Override
+        public Composite getComposite() {
+            return composite;
+        }
+
+        @Override
+        public void setComposite(Composite comp) {
+            composite = comp;
+        }
+
+        @Override
+        public Stroke getStroke() {
+            return stroke;
+        }
+
+        @Override
+        public void setStroke(Stroke s) {
+            stroke = s;
+        }
+
+        @Override
+        public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+            hints.put(hintKey, hintValue);
+        }
+
+        @Override
+        public Object getRenderingHint(RenderingHints.Key hintKey) {
+            return hints.get(hintKey);
+        }
+
+        @Override
+        public void setRenderingHints(Map<?, ?> hints) {
+            this.hints.clear();
+            this.hints.putAll(hints);
+        }
+
+        @Override
+        public void addRenderingHints(Map<?, ?> hints) {
+            this.hints.putAll(hints);
+        }
+
+        @Override
+        public RenderingHints getRenderingHints() {
+            return (RenderingHints) hints.clone();
+        }
+
+        @Override
+        public GraphicsConfiguration getDeviceConfiguration() {
+            return null;
+        }
+
+        // ---- clip: kept in user space, no intersection (nothing is drawn anyway) ----
+
+        @Override
+        public void clip(Shape s) {
+            clip = s;
+        }
+
+        @Override
+        public void clipRect(int x, int y, int width, int height) {
+            clip = new Rectangle(x, y, width, height);
+        }
+
+        @Override
+        public void setClip(int x, int y, int width, int height) {
+            clip = new Rectangle(x, y, width, height);
+        }
+
+        @Override
+        public void setClip(Shape clip) {
+            this.clip = clip;
+        }
+
+        @Override
+        public Shape getClip() {
+            return clip;
+        }
+
+        @Override
+        public Rectangle getClipBounds() {
+            return clip != null ? clip.getBounds() : null;
+        }
+    }
+}
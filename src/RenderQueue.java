@@ -0,0 +1,120 @@
+import java.awt.*;
+
+/**
+ * Reusable depth-sorted draw list for the world pass. Entries are kept in flat arrays with primitive
+ * depth keys, and the sorted order from the previous frame is reused as the starting point of an
+ * insertion sort, so a frame where nothing crossed anything costs a single pass and allocates nothing.
+ */
+final class RenderQueue {
+    private Object[] items = new Object[64];
+    private double[] depths = new double[64];
+    private int size;
+
+    // sorted order of the previous frame, as indexes into items
+    private int[] order = new int[64];
+    private Object[] previousItems = new Object[64];
+    private int previousSize;
+
+    void begin() {
+        size = 0;
+    }
+
+    /**
+     * Queues a {@link WorldObject} or an {@link Entity}; other types are ignored when drawing.
+     * Callers should submit in the same order every frame so the previous order stays valid.
+     */
+    void add(Object item, double depth) {
+        if (item == null) {
+            return;
+        }
+        if (size == items.length) {
+            grow(size * 2);
+        }
+        items[size] = item;
+        depths[size] = depth;
+        size++;
+    }
+
+    /**
+     * Sorts by ascending depth (stable). When the submitted items differ from the previous frame the
+     * order is reset to submission order before sorting.
+     */
+    void sort() {
+        boolean sameItems = size == previousSize;
+        for (int i = 0; sameItems && i < size; i++) {
+            sameItems = items[i] == previousItems[i];
+        }
+        if (!sameItems) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+        }
+
+        for (int i = 1; i < size; i++) {
+            int index = order[i];
+            double depth = depths[index];
+            int j = i - 1;
+            while (j >= 0 && (depths[order[j]] > depth || (depths[order[j]] == depth && order[j] > index))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+
+        System.arraycopy(items, 0, previousItems, 0, size);
+        for (int i = size; i < previousSize; i++) {
+            previousItems[i] = null;
+        }
+        previousSize = size;
+    }
+
+    /**
+     * Draws in depth order. Entities captured in {@code snapshot} are drawn at their interpolated
+     * position; pass {@code null} to draw everything where the logic left it.
+     */
+    void draw(Graphics2D g, Camera camera, RenderSnapshot snapshot, double alpha) {
+        for (int i = 0; i < size; i++) {
+            Object item = items[order[i]];
+            if (item instanceof WorldObject object) {
+                object.draw(g);
+            } else if (item instanceof Entity entity) {
+                if (snapshot != null) {
+                    entity.drawAt(g, snapshot.entityX(entity, alpha), snapshot.entityY(entity, alpha));
+                } else {
+                    entity.draw(g, camera);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops references so objects from an unloaded world are not kept alive by the queue.
+     */
+    void clear() {
+        for (int i = 0; i < Math.max(size, previousSize); i++) {
+            items[i] = null;
+            previousItems[i] = null;
+        }
+        size = 0;
+        previousSize = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow(int capacity) {
+        Object[] newItems = new Object[capacity];
+        System.arraycopy(items, 0, newItems, 0, size);
+        items = newItems;
+        double[] newDepths = new double[capacity];
+        System.arraycopy(depths, 0, newDepths, 0, size);
+        depths = newDepths;
+        int[] newOrder = new int[capacity];
+        System.arraycopy(order, 0, newOrder, 0, order.length);
+        order = newOrder;
+        Object[] newPrevious = new Object[capacity];
+        System.arraycopy(previousItems, 0, newPrevious, 0, previousSize);
+        previousItems = newPrevious;
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positions of the camera and moving entities at the last two fixed logic steps. The logic thread
+ * publishes after every step; rendering blends the two by how far it is into the next step, so frames
+ * drawn between logic updates move smoothly instead of repeating the last step.
+ * <p>
+ * Arrays are reused between publishes. Callers serialize {@link #publish} and the reads through the
+ * panel's state lock.
+ */
+final class RenderSnapshot {
+    // กระโดดไกลกว่านี้ในหนึ่ง step (warp, fast travel, load) ให้วาดที่ตำแหน่งใหม่เลยไม่ต้อง blend
+    private static final double SNAP_DISTANCE = 128.0;
+
+    private final long stepNanos;
+    private Entity[] entities = new Entity[8];
+    private double[] prevX = new double[8];
+    private double[] prevY = new double[8];
+    private double[] currX = new double[8];
+    private double[] currY = new double[8];
+    private int count;
+
+    private Entity[] lastEntities = new Entity[8];
+    private double[] lastX = new double[8];
+    private double[] lastY = new double[8];
+    private int lastCount;
+
+    private boolean hasCamera;
+    private double prevCamX, prevCamY, prevZoom;
+    private double currCamX, currCamY, currZoom;
+    private long publishedAt;
+
+    RenderSnapshot(double logicStepSeconds) {
+        this.stepNanos = Math.max(1L, (long) (logicStepSeconds * 1_000_000_000L));
+    }
+
+    void publish(Camera camera, List<? extends Entity> party, List<? extends Entity> npcs, long nowNanos) {
+        System.arraycopy(entities, 0, lastEntities, 0, count);
+        System.arraycopy(currX, 0, lastX, 0, count);
+        System.arraycopy(currY, 0, lastY, 0, count);
+        for (int i = count; i < lastCount; i++) {
+            lastEntities[i] = null;
+        }
+        lastCount = count;
+
+        count = 0;
+        if (party != null) {
+            for (int i = 0; i < party.size(); i++) {
+                capture(party.get(i));
+            }
+        }
+        if (npcs != null) {
+            for (int i = 0; i < npcs.size(); i++) {
+                capture(npcs.get(i));
+            }
+        }
+        for (int i = count; i < lastCount; i++) {
+            entities[i] = null;
+        }
+
+        if (camera != null) {
+            double x = camera.getPreciseX();
+            double y = camera.getPreciseY();
+            double zoom = camera.getZoom();
+            boolean snap = !hasCamera || Math.abs(x - currCamX) > SNAP_DISTANCE || Math.abs(y - currCamY) > SNAP_DISTANCE;
+            prevCamX = snap ? x : currCamX;
+            prevCamY = snap ? y : currCamY;
+            prevZoom = hasCamera ? currZoom : zoom;
+            currCamX = x;
+            currCamY = y;
+            currZoom = zoom;
+            hasCamera = true;
+        }
+        publishedAt = nowNanos;
+    }
+
+    /**
+     * Fraction of a logic step elapsed since the last publish, clamped to [0, 1].
+     */
+    double alpha(long nowNanos) {
+        double alpha = (nowNanos - publishedAt) / (double) stepNanos;
+        return Math.max(0.0, Math.min(1.0, alpha));
+    }
+
+    boolean hasCamera() {
+        return hasCamera;
+    }
+
+    double cameraX(double alpha) {
+        return prevCamX + (currCamX - prevCamX) * alpha;
+    }
+
+    double cameraY(double alpha) {
+        return prevCamY + (currCamY - prevCamY) * alpha;
+    }
+
+    double zoom(double alpha) {
+        return prevZoom + (currZoom - prevZoom) * alpha;
+    }
+
+    /**
+     * Interpolated X of an entity captured in the snapshot, or its live position when it was not.
+     */
+    double entityX(Entity entity, double alpha) {
+        int slot = indexOf(entities, count, entity);
+        return slot >= 0 ? prevX[slot] + (currX[slot] - prevX[slot]) * alpha : entity.getPreciseX();
+    }
+
+    double entityY(Entity entity, double alpha) {
+        int slot = indexOf(entities, count, entity);
+        return slot >= 0 ? prevY[slot] + (currY[slot] - prevY[slot]) * alpha : entity.getPreciseY();
+    }
+
+    void clear() {
+        for (int i = 0; i < Math.max(count, lastCount); i++) {
+            entities[i] = null;
+            lastEntities[i] = null;
+        }
+        count = 0;
+        lastCount = 0;
+        hasCamera = false;
+    }
+
+    private void capture(Entity entity) {
+        if (entity == null) {
+            return;
+        }
+        if (count == entities.length) {
+            grow(count * 2);
+        }
+        double x = entity.getPreciseX();
+        double y = entity.getPreciseY();
+        // รายชื่อมักเรียงเหมือนเดิมทุก step จึงลองช่องเดิมก่อนค่อยไล่หา
+        int previous = count < lastCount && lastEntities[count] == entity ? count : indexOf(lastEntities, lastCount, entity);
+        boolean snap = previous < 0
+                || Math.abs(x - lastX[previous]) > SNAP_DISTANCE
+                || Math.abs(y - lastY[previous]) > SNAP_DISTANCE;
+        entities[count] = entity;
+        prevX[count] = snap ? x : lastX[previous];
+        prevY[count] = snap ? y : lastY[previous];
+        currX[count] = x;
+        currY[count] = y;
+        count++;
+    }
+
+    private static int indexOf(Entity[] array, int size, Entity entity) {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == entity) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void grow(int capacity) {
+        entities = Arrays.copyOf(entities, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        currX = Arrays.copyOf(currX, capacity);
+        currY = Arrays.copyOf(currY, capacity);
+        lastEntities = Arrays.copyOf(lastEntities, capacity);
+        lastX = Arrays.copyOf(lastX, capacity);
+        lastY = Arrays.copyOf(lastY, capacity);
+    }
+}
@@ -1,6 +1,8 @@
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -10,6 +12,9 @@ import java.nio.file.StandardCopyOption;
 final class ResourceLoader {
     private static final ClassLoader CL = ResourceLoader.class.getClassLoader();
     private static final String RESOURCE_PREFIX = "resources/";
+    // ภาพทุกภาพผ่าน cache นี้: path เดียวกันโหลดครั้งเดียว ใช้ร่วมกันทั้งเกม
+    private static final AssetCache<BufferedImage> IMAGES =
+            new AssetCache<>(AssetCache.DEFAULT_BUDGET_BYTES, ResourceLoader::readImage, ResourceLoader::imageBytes);
 
     private ResourceLoader() {
     }
@@ -58,16 +63,40 @@ final class ResourceLoader {
         }
     }
 
+    /**
+     * The image at {@code path} from the shared cache (decoded on the first request). Images are shared,
+     * so callers must not draw into them.
+     */
     static BufferedImage loadImage(String path) throws IOException {
+        return IMAGES.get(path);
+    }
+
+    /**
+     * Like {@link #loadImage} but keeps the image cached until the handle is closed.
+     */
+    static AssetCache.Handle<BufferedImage> acquireImage(String path) throws IOException {
+        return IMAGES.acquire(path);
+    }
+
+    static AssetCache<BufferedImage> getImageCache() {
+        return IMAGES;
+    }
+
+    private static BufferedImage readImage(String path) throws IOException {
         try (InputStream stream = openStream(path)) {
             BufferedImage image = ImageIO.read(stream);
             if (image == null) {
                 throw new IOException("ImageIO.read returned null for " + path);
             }
-            return image;
+            return CompatibleImages.toCompatible(image);
         }
     }
 
+    private static long imageBytes(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
     static URL getResourceUrl(String path) {
         if (path == null || path.isEmpty()) {
             return null;
@@ -84,6 +113,24 @@ final class ResourceLoader {
         return null;
     }
 
+    /**
+     * Returns a filesystem path for the resource when it lives on disk (not inside a jar), or null.
+     */
+    static Path toLocalPath(String path) {
+        URL url = getResourceUrl(path);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException ignored) {
+            }
+        }
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        Path filePath = Paths.get(path);
+        return Files.exists(filePath) ? filePath : null;
+    }
+
     static File materializeToTempFile(String path, String suffix) throws IOException {
         Path temp = Files.createTempFile("resource-", suffix != null ? suffix : ".tmp");
         temp.toFile().deleteOnExit();
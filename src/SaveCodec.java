@@ -0,0 +1,814 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary save format. A file is the magic {@code 89 'S' 'A' 'V'}, the schema {@link #VERSION} as a
+ * varint, then a list of fields. Every field starts with a varint key {@code (number << 2) | kind}:
+ * <ul>
+ *     <li>{@code VARINT}: zigzag varint (ints, booleans, enum and string references)</li>
+ *     <li>{@code FIXED64}: 8 bytes little endian (positions as doubles)</li>
+ *     <li>{@code BYTES}: varint length + payload (string table, nested records, maps)</li>
+ * </ul>
+ * so a reader skips fields it does not know. The top level holds the string table (first), one
+ * currency record and one record per player, quest and world object. Strings (names, ids, enum
+ * constants, stat types) are written once in the table and referenced by index + 1, 0 being null.
+ * <p>
+ * Files written by older builds (Java serialization, plain or gzipped) are still read, see
+ * {@link #decodeAny}; the game rewrites them in this format when they are loaded.
+ * <pre>
+ * java -cp ... SaveCodec bench [save-name] [--iterations=N]
+ * java -cp ... SaveCodec migrate [saves-dir]
+ * </pre>
+ */
+final class SaveCodec {
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = {(byte) 0x89, 'S', 'A', 'V'};
+    private static final int VARINT = 0;
+    private static final int FIXED64 = 1;
+    private static final int BYTES = 2;
+
+    // top level
+    private static final int SAVE_STRINGS = 1;
+    private static final int SAVE_CURRENCY = 2;
+    private static final int SAVE_PLAYER = 3;
+    private static final int SAVE_QUEST = 4;
+    private static final int SAVE_WORLD_OBJECT = 5;
+    // currency
+    private static final int CURRENCY_ACTIVE_INDEX = 1;
+    private static final int CURRENCY_GOLD = 2;
+    private static final int CURRENCY_ESSENCE = 3;
+    private static final int CURRENCY_BOSS_KEYS = 4;
+    // player
+    private static final int PLAYER_NAME = 1;
+    private static final int PLAYER_X = 2;
+    private static final int PLAYER_Y = 3;
+    private static final int PLAYER_STATS = 4;
+    private static final int PLAYER_SKILLS = 5;
+    // stats (BASE/EQUIPMENT/TEMPORARY เป็น map ชื่อ stat -> ค่า เก็บเฉพาะที่ไม่เป็น 0)
+    private static final int STATS_LEVEL = 1;
+    private static final int STATS_EXP = 2;
+    private static final int STATS_HP = 3;
+    private static final int STATS_MAX_BP = 4;
+    private static final int STATS_BP = 5;
+    private static final int STATS_BASE = 6;
+    private static final int STATS_EQUIPMENT = 7;
+    private static final int STATS_TEMPORARY = 8;
+    // skills
+    private static final int SKILLS_LEVELS = 1;
+    private static final int SKILLS_STAT_UPGRADES = 2;
+    // quest
+    private static final int QUEST_ID = 1;
+    private static final int QUEST_NAME = 2;
+    private static final int QUEST_DESCRIPTION = 3;
+    private static final int QUEST_STATUS = 4;
+    private static final int QUEST_REWARD = 5;
+    // world object
+    private static final int OBJECT_ID = 1;
+    private static final int OBJECT_TYPE = 2;
+    private static final int OBJECT_X = 3;
+    private static final int OBJECT_Y = 4;
+    private static final int OBJECT_WIDTH = 5;
+    private static final int OBJECT_HEIGHT = 6;
+    private static final int OBJECT_PROMPT = 7;
+    private static final int OBJECT_PRIORITY = 8;
+    private static final int OBJECT_FLAG = 9;
+    private static final int OBJECT_CHEST_GOLD = 10;
+    private static final int OBJECT_CHEST_ESSENCE = 11;
+    private static final int OBJECT_CHEST_KEY = 12;
+    private static final int OBJECT_DOOR_LOCKED = 13;
+    private static final int OBJECT_DOOR_OPEN = 14;
+    private static final int OBJECT_POINT_ID = 15;
+    private static final int OBJECT_DISPLAY_NAME = 16;
+    private static final int OBJECT_UNLOCK_COST = 17;
+    private static final int OBJECT_TRAVEL_COST = 18;
+    private static final int OBJECT_TRAVEL_UNLOCKED = 19;
+    private static final int OBJECT_STATION = 20;
+
+    private SaveCodec() {
+    }
+
+    /**
+     * Result of reading a save file: the data, and whether it was in an older format.
+     */
+    record Decoded(SaveData data, boolean legacy) {
+    }
+
+    static boolean isBinary(byte[] bytes) {
+        if (bytes.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Decoded read(Path file) throws IOException {
+        return decodeAny(Files.readAllBytes(file));
+    }
+
+    static Decoded decodeAny(byte[] bytes) throws IOException {
+        if (isBinary(bytes)) {
+            return new Decoded(decode(bytes), false);
+        }
+        return new Decoded(decodeLegacy(bytes), true);
+    }
+
+    /**
+     * Java serialization as written before the binary format, plain or gzipped.
+     */
+    static SaveData decodeLegacy(byte[] bytes) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        if (bytes.length >= 2 && (bytes[0] & 0xff) == 0x1f && (bytes[1] & 0xff) == 0x8b) {
+            in = new GZIPInputStream(in);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(in)) {
+            return (SaveData) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("not a save file: " + e.getMessage(), e);
+        }
+    }
+
+    // ---- encoding ----
+
+    static byte[] encode(SaveData data) {
+        Encoder encoder = new Encoder();
+        Buffer body = new Buffer(4096);
+
+        Buffer record = new Buffer(64);
+        record.field(CURRENCY_ACTIVE_INDEX, data.activeIndex);
+        record.field(CURRENCY_GOLD, data.gold);
+        record.field(CURRENCY_ESSENCE, data.essence);
+        record.field(CURRENCY_BOSS_KEYS, data.bossKeys);
+        body.nested(SAVE_CURRENCY, record);
+
+        for (SaveData.PlayerData pd : data.players) {
+            if (pd != null) {
+                body.nested(SAVE_PLAYER, encoder.player(pd));
+            }
+        }
+        for (SaveData.QuestData qd : data.quests) {
+            if (qd != null) {
+                body.nested(SAVE_QUEST, encoder.quest(qd));
+            }
+        }
+        for (SaveData.WorldObjectData wod : data.worldObjects) {
+            if (wod != null) {
+                body.nested(SAVE_WORLD_OBJECT, encoder.worldObject(wod));
+            }
+        }
+
+        Buffer strings = new Buffer(1024);
+        strings.varint(encoder.strings.size());
+        for (String s : encoder.strings) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            strings.varint(utf8.length);
+            strings.write(utf8, 0, utf8.length);
+        }
+
+        Buffer out = new Buffer(body.size() + strings.size() + 16);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.varint(VERSION);
+        out.nested(SAVE_STRINGS, strings);
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static final class Encoder {
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Integer> index = new HashMap<>();
+
+        int ref(String s) {
+            if (s == null) {
+                return 0;
+            }
+            Integer existing = index.get(s);
+            if (existing != null) {
+                return existing;
+            }
+            strings.add(s);
+            int ref = strings.size();
+            index.put(s, ref);
+            return ref;
+        }
+
+        void string(Buffer buffer, int number, String value) {
+            if (value != null) {
+                buffer.key(number, VARINT);
+                buffer.varint(ref(value));
+            }
+        }
+
+        Buffer player(SaveData.PlayerData pd) {
+            Buffer b = new Buffer(128);
+            string(b, PLAYER_NAME, pd.name);
+            b.fixed(PLAYER_X, pd.x);
+            b.fixed(PLAYER_Y, pd.y);
+            if (pd.stats != null) {
+                b.nested(PLAYER_STATS, stats(pd.stats));
+            }
+            if (pd.skills != null) {
+                Buffer skills = new Buffer(64);
+                // เรียงตาม id ให้เซฟเดิมได้ byte เดิมเสมอ (HashMap ไม่รับประกันลำดับ)
+                Map<String, Integer> levels = new TreeMap<>(pd.skills.snapshot());
+                Buffer map = new Buffer(32);
+                map.varint(levels.size());
+                for (Map.Entry<String, Integer> e : levels.entrySet()) {
+                    map.varint(ref(e.getKey()));
+                    map.zigzag(e.getValue());
+                }
+                skills.nested(SKILLS_LEVELS, map);
+                Map<Stats.StatType, Integer> upgrades = pd.skills.statSnapshot();
+                map = new Buffer(32);
+                map.varint(upgrades.size());
+                for (Map.Entry<Stats.StatType, Integer> e : upgrades.entrySet()) {
+                    map.varint(ref(e.getKey().name()));
+                    map.zigzag(e.getValue());
+                }
+                skills.nested(SKILLS_STAT_UPGRADES, map);
+                b.nested(PLAYER_SKILLS, skills);
+            }
+            return b;
+        }
+
+        Buffer stats(Stats stats) {
+            Buffer b = new Buffer(64);
+            b.field(STATS_LEVEL, stats.getLevel());
+            b.field(STATS_EXP, stats.getExp());
+            b.field(STATS_HP, stats.getCurrentHp());
+            b.field(STATS_MAX_BP, stats.getMaxBattlePoints());
+            b.field(STATS_BP, stats.getCurrentBattlePoints());
+            Buffer base = new Buffer(32);
+            Buffer equipment = new Buffer(16);
+            Buffer temporary = new Buffer(16);
+            int baseCount = 0;
+            int equipmentCount = 0;
+            int temporaryCount = 0;
+            for (Stats.StatType type : Stats.StatType.values()) {
+                baseCount += statEntry(base, type, stats.getBaseValue(type));
+                equipmentCount += statEntry(equipment, type, stats.getEquipmentBonus(type));
+                temporaryCount += statEntry(temporary, type, stats.getTemporaryBonus(type));
+            }
+            b.statMap(STATS_BASE, baseCount, base);
+            b.statMap(STATS_EQUIPMENT, equipmentCount, equipment);
+            b.statMap(STATS_TEMPORARY, temporaryCount, temporary);
+            return b;
+        }
+
+        private int statEntry(Buffer b, Stats.StatType type, int value) {
+            if (value == 0) {
+                return 0;
+            }
+            b.varint(ref(type.name()));
+            b.zigzag(value);
+            return 1;
+        }
+
+        Buffer quest(SaveData.QuestData qd) {
+            Buffer b = new Buffer(64);
+            string(b, QUEST_ID, qd.id);
+            string(b, QUEST_NAME, qd.name);
+            string(b, QUEST_DESCRIPTION, qd.description);
+            string(b, QUEST_STATUS, qd.status != null ? qd.status.name() : null);
+            b.field(QUEST_REWARD, qd.rewardGold);
+            return b;
+        }
+
+        Buffer worldObject(SaveData.WorldObjectData wod) {
+            Buffer b = new Buffer(64);
+            string(b, OBJECT_ID, wod.id);
+            string(b, OBJECT_TYPE, wod.type);
+            b.fixed(OBJECT_X, wod.x);
+            b.fixed(OBJECT_Y, wod.y);
+            b.field(OBJECT_WIDTH, wod.width);
+            b.field(OBJECT_HEIGHT, wod.height);
+            string(b, OBJECT_PROMPT, wod.prompt);
+            b.field(OBJECT_PRIORITY, wod.priority);
+            if (wod.flags != null) {
+                for (WorldObject.StateFlag flag : wod.flags) {
+                    string(b, OBJECT_FLAG, flag.name());
+                }
+            }
+            b.optional(OBJECT_CHEST_GOLD, wod.chestGold);
+            b.optional(OBJECT_CHEST_ESSENCE, wod.chestEssence);
+            b.optional(OBJECT_CHEST_KEY, wod.chestGrantsKey);
+            b.optional(OBJECT_DOOR_LOCKED, wod.doorLocked);
+            b.optional(OBJECT_DOOR_OPEN, wod.doorOpen);
+            string(b, OBJECT_POINT_ID, wod.pointId);
+            string(b, OBJECT_DISPLAY_NAME, wod.displayName);
+            b.optional(OBJECT_UNLOCK_COST, wod.unlockCost);
+            b.optional(OBJECT_TRAVEL_COST, wod.travelCost);
+            b.optional(OBJECT_TRAVEL_UNLOCKED, wod.fastTravelUnlocked);
+            string(b, OBJECT_STATION, wod.stationName);
+            return b;
+        }
+    }
+
+    /**
+     * Growable byte buffer with the varint/field helpers; {@code buf} and {@code count} are shared with
+     * {@link ByteArrayOutputStream}, so nested records are copied without an extra array.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(int value) {
+            varint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void key(int number, int kind) {
+            varint(((long) number << 2) | kind);
+        }
+
+        void field(int number, int value) {
+            key(number, VARINT);
+            zigzag(value);
+        }
+
+        void optional(int number, Integer value) {
+            if (value != null) {
+                field(number, value);
+            }
+        }
+
+        void optional(int number, Boolean value) {
+            if (value != null) {
+                field(number, value ? 1 : 0);
+            }
+        }
+
+        void fixed(int number, double value) {
+            key(number, FIXED64);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                write((int) (bits >>> (8 * i)));
+            }
+        }
+
+        void nested(int number, Buffer payload) {
+            key(number, BYTES);
+            varint(payload.count);
+            write(payload.buf, 0, payload.count);
+        }
+
+        void statMap(int number, int entries, Buffer payload) {
+            if (entries == 0) {
+                return;
+            }
+            Buffer map = new Buffer(payload.count + 2);
+            map.varint(entries);
+            map.write(payload.buf, 0, payload.count);
+            nested(number, map);
+        }
+
+        void writeTo(Buffer other) {
+            other.write(buf, 0, count);
+        }
+    }
+
+    // ---- decoding ----
+
+    static SaveData decode(byte[] bytes) throws IOException {
+        if (!isBinary(bytes)) {
+            throw new IOException("not a binary save");
+        }
+        Reader in = new Reader(bytes, MAGIC.length, bytes.length);
+        int version = (int) in.varint();
+        if (version > VERSION) {
+            throw new IOException("save format v" + version + " is newer than this build (v" + VERSION + ")");
+        }
+        SaveData data = new SaveData();
+        Decoder decoder = null;
+        while (in.hasMore()) {
+            int key = (int) in.varint();
+            int number = key >>> 2;
+            if (number == SAVE_STRINGS && (key & 3) == BYTES) {
+                Reader table = in.nested();
+                String[] strings = new String[(int) table.varint() + 1];
+                for (int i = 1; i < strings.length; i++) {
+                    int length = (int) table.varint();
+                    strings[i] = new String(bytes, table.take(length), length, StandardCharsets.UTF_8);
+                }
+                decoder = new Decoder(strings);
+                continue;
+            }
+            if (decoder == null) {
+                throw new IOException("string table missing");
+            }
+            switch (number) {
+                case SAVE_CURRENCY -> decoder.currency(in.nested(), data);
+                case SAVE_PLAYER -> data.players.add(decoder.player(in.nested()));
+                case SAVE_QUEST -> data.quests.add(decoder.quest(in.nested()));
+                case SAVE_WORLD_OBJECT -> data.worldObjects.add(decoder.worldObject(in.nested()));
+                default -> in.skip(key);
+            }
+        }
+        return data;
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos;
+        private final int limit;
+
+        Reader(byte[] bytes, int pos, int limit) {
+            this.bytes = bytes;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return pos < limit;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= limit) {
+                    throw new EOFException("truncated save");
+                }
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("malformed varint");
+        }
+
+        int zigzag() throws IOException {
+            long raw = varint();
+            return (int) (raw >>> 1) ^ -(int) (raw & 1);
+        }
+
+        double fixed() throws IOException {
+            int at = take(8);
+            long bits = 0;
+            for (int i = 7; i >= 0; i--) {
+                bits = (bits << 8) | (bytes[at + i] & 0xFFL);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        /**
+         * Advances over {@code length} bytes and returns where they start.
+         */
+        int take(int length) throws IOException {
+            if (length < 0 || length > limit - pos) {
+                throw new EOFException("truncated save");
+            }
+            int start = pos;
+            pos += length;
+            return start;
+        }
+
+        Reader nested() throws IOException {
+            int length = (int) varint();
+            int start = take(length);
+            return new Reader(bytes, start, start + length);
+        }
+
+        void skip(int key) throws IOException {
+            switch (key & 3) {
+                case VARINT -> varint();
+                case FIXED64 -> take(8);
+                case BYTES -> take((int) varint());
+                default -> throw new IOException("unknown field kind in key " + key);
+            }
+        }
+    }
+
+    private static final class Decoder {
+        private final String[] strings;
+
+        Decoder(String[] strings) {
+            this.strings = strings;
+        }
+
+        String string(Reader in) throws IOException {
+            int ref = (int) in.varint();
+            if (ref < 0 || ref >= strings.length) {
+                throw new IOException("bad string reference " + ref);
+            }
+            return strings[ref];
+        }
+
+        void currency(Reader in, SaveData data) throws IOException {
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case CURRENCY_ACTIVE_INDEX -> data.activeIndex = in.zigzag();
+                    case CURRENCY_GOLD -> data.gold = in.zigzag();
+                    case CURRENCY_ESSENCE -> data.essence = in.zigzag();
+                    case CURRENCY_BOSS_KEYS -> data.bossKeys = in.zigzag();
+                    default -> in.skip(key);
+                }
+            }
+        }
+
+        SaveData.PlayerData player(Reader in) throws IOException {
+            SaveData.PlayerData pd = new SaveData.PlayerData();
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case PLAYER_NAME -> pd.name = string(in);
+                    case PLAYER_X -> pd.x = in.fixed();
+                    case PLAYER_Y -> pd.y = in.fixed();
+                    case PLAYER_STATS -> pd.stats = stats(in.nested());
+                    case PLAYER_SKILLS -> pd.skills = skills(in.nested());
+                    default -> in.skip(key);
+                }
+            }
+            return pd;
+        }
+
+        Stats stats(Reader in) throws IOException {
+            Stats stats = new Stats();
+            int level = 1;
+            int exp = 0;
+            int hp = 1;
+            int maxBp = 10;
+            int bp = 10;
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case STATS_LEVEL -> level = in.zigzag();
+                    case STATS_EXP -> exp = in.zigzag();
+                    case STATS_HP -> hp = in.zigzag();
+                    case STATS_MAX_BP -> maxBp = in.zigzag();
+                    case STATS_BP -> bp = in.zigzag();
+                    case STATS_BASE -> {
+                        for (Map.Entry<Stats.StatType, Integer> e : statMap(in.nested()).entrySet()) {
+                            stats.setBaseValue(e.getKey(), e.getValue());
+                        }
+                    }
+                    case STATS_EQUIPMENT -> stats.applyEquipmentModifier(statMap(in.nested()));
+                    case STATS_TEMPORARY -> stats.applyTemporaryModifier(statMap(in.nested()));
+                    default -> in.skip(key);
+                }
+            }
+            // ค่าที่ถูก clamp ตาม max ต้องตั้งหลังจาก stat ครบแล้ว
+            stats.setLevel(level);
+            stats.setExp(exp);
+            stats.setMaxBattlePoints(maxBp);
+            stats.setCurrentBattlePoints(bp);
+            stats.setCurrentHp(hp);
+            return stats;
+        }
+
+        private EnumMap<Stats.StatType, Integer> statMap(Reader in) throws IOException {
+            EnumMap<Stats.StatType, Integer> map = new EnumMap<>(Stats.StatType.class);
+            int count = (int) in.varint();
+            for (int i = 0; i < count; i++) {
+                Stats.StatType type = statType(string(in));
+                int value = in.zigzag();
+                if (type != null) {
+                    map.put(type, value);
+                }
+            }
+            return map;
+        }
+
+        PlayerSkills skills(Reader in) throws IOException {
+            PlayerSkills skills = new PlayerSkills();
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case SKILLS_LEVELS -> {
+                        Reader map = in.nested();
+                        int count = (int) map.varint();
+                        for (int i = 0; i < count; i++) {
+                            String id = string(map);
+                            skills.setLevel(id, map.zigzag(), Integer.MAX_VALUE);
+                        }
+                    }
+                    case SKILLS_STAT_UPGRADES -> {
+                        Reader map = in.nested();
+                        int count = (int) map.varint();
+                        for (int i = 0; i < count; i++) {
+                            Stats.StatType type = statType(string(map));
+                            int level = map.zigzag();
+                            if (type != null) {
+                                skills.setStatUpgradeLevel(type, level);
+                            }
+                        }
+                    }
+                    default -> in.skip(key);
+                }
+            }
+            return skills;
+        }
+
+        SaveData.QuestData quest(Reader in) throws IOException {
+            SaveData.QuestData qd = new SaveData.QuestData();
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case QUEST_ID -> qd.id = string(in);
+                    case QUEST_NAME -> qd.name = string(in);
+                    case QUEST_DESCRIPTION -> qd.description = string(in);
+                    case QUEST_STATUS -> qd.status = enumValue(QuestManager.Status.class, string(in));
+                    case QUEST_REWARD -> qd.rewardGold = in.zigzag();
+                    default -> in.skip(key);
+                }
+            }
+            return qd;
+        }
+
+        SaveData.WorldObjectData worldObject(Reader in) throws IOException {
+            SaveData.WorldObjectData wod = new SaveData.WorldObjectData();
+            while (in.hasMore()) {
+                int key = (int) in.varint();
+                switch (key >>> 2) {
+                    case OBJECT_ID -> wod.id = string(in);
+                    case OBJECT_TYPE -> wod.type = string(in);
+                    case OBJECT_X -> wod.x = in.fixed();
+                    case OBJECT_Y -> wod.y = in.fixed();
+                    case OBJECT_WIDTH -> wod.width = in.zigzag();
+                    case OBJECT_HEIGHT -> wod.height = in.zigzag();
+                    case OBJECT_PROMPT -> wod.prompt = string(in);
+                    case OBJECT_PRIORITY -> wod.priority = in.zigzag();
+                    case OBJECT_FLAG -> {
+                        WorldObject.StateFlag flag = enumValue(WorldObject.StateFlag.class, string(in));
+                        if (flag != null) {
+                            wod.flags.add(flag);
+                        }
+                    }
+                    case OBJECT_CHEST_GOLD -> wod.chestGold = in.zigzag();
+                    case OBJECT_CHEST_ESSENCE -> wod.chestEssence = in.zigzag();
+                    case OBJECT_CHEST_KEY -> wod.chestGrantsKey = in.zigzag() != 0;
+                    case OBJECT_DOOR_LOCKED -> wod.doorLocked = in.zigzag() != 0;
+                    case OBJECT_DOOR_OPEN -> wod.doorOpen = in.zigzag() != 0;
+                    case OBJECT_POINT_ID -> wod.pointId = string(in);
+                    case OBJECT_DISPLAY_NAME -> wod.displayName = string(in);
+                    case OBJECT_UNLOCK_COST -> wod.unlockCost = in.zigzag();
+                    case OBJECT_TRAVEL_COST -> wod.travelCost = in.zigzag();
+                    case OBJECT_TRAVEL_UNLOCKED -> wod.fastTravelUnlocked = in.zigzag() != 0;
+                    case OBJECT_STATION -> wod.stationName = string(in);
+                    default -> in.skip(key);
+                }
+            }
+            return wod;
+        }
+
+        // ชื่อที่ build นี้ไม่รู้จัก (เช่น stat ที่ถูกลบ) ถูกข้ามไป
+        private static Stats.StatType statType(String name) {
+            return enumValue(Stats.StatType.class, name);
+        }
+
+        private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(type, name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // ---- tools ----
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        String command = args.length > 0 ? args[0] : "bench";
+        switch (command) {
+            case "bench" -> bench(args);
+            case "migrate" -> migrate(Paths.get(args.length > 1 ? args[1] : "saves"));
+            default -> {
+                System.err.println("Usage: SaveCodec bench [save-name] [--iterations=N] | migrate [dir]");
+                System.exit(2);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Rewrites every older-format {@code .sav} in {@code dir} in the binary format.
+     */
+    private static void migrate(Path dir) throws IOException {
+        int migrated = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SaveWriter.EXTENSION)) {
+            for (Path file : files) {
+                byte[] bytes = Files.readAllBytes(file);
+                if (isBinary(bytes)) {
+                    continue;
+                }
+                try {
+                    byte[] encoded = encode(decodeLegacy(bytes));
+                    SaveWriter.writeAtomically(file, encoded);
+                    System.out.printf(Locale.ROOT, "%s: %d -> %d bytes%n", file.getFileName(), bytes.length, encoded.length);
+                    migrated++;
+                } catch (IOException e) {
+                    System.err.println(file.getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Migrated " + migrated + " save(s) in " + dir);
+    }
+
+    private static void bench(String[] args) throws Exception {
+        String saveName = null;
+        int iterations = 20_000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--iterations=")) {
+                iterations = Integer.parseInt(args[i].substring("--iterations=".length()));
+            } else {
+                saveName = args[i];
+            }
+        }
+        SaveData data;
+        if (saveName != null) {
+            data = read(Paths.get("saves", saveName + SaveWriter.EXTENSION)).data();
+        } else {
+            // เซฟของเกมใหม่ (ปิด log ของเกมระหว่างสร้าง)
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            GamePanel game = new GamePanel(640, 360, new InputManager(), AudioSink.SILENT);
+            game.startNewGame(null);
+            data = SaveData.capture(game);
+            System.setOut(console);
+        }
+        System.out.printf(Locale.ROOT, "%d players, %d quests, %d world objects, %d iterations%n",
+                data.players.size(), data.quests.size(), data.worldObjects.size(), iterations);
+        System.out.println("format              bytes   encode us   decode us");
+        byte[] serialized = javaSerialize(data, false);
+        byte[] gzipped = javaSerialize(data, true);
+        byte[] binary = encode(data);
+        report("java serialization", serialized.length, iterations,
+                () -> javaSerialize(data, false), () -> decodeLegacy(serialized));
+        report("java + gzip", gzipped.length, iterations,
+                () -> javaSerialize(data, true), () -> decodeLegacy(gzipped));
+        report("binary v" + VERSION, binary.length, iterations, () -> encode(data), () -> decode(binary));
+    }
+
+    private interface Op {
+        Object run() throws Exception;
+    }
+
+    private static void report(String label, int size, int iterations, Op encodeOp, Op decodeOp) throws Exception {
+        double encodeUs = time(encodeOp, iterations);
+        double decodeUs = time(decodeOp, iterations);
+        System.out.printf(Locale.ROOT, "%-18s %6d   %9.1f   %9.1f%n", label, size, encodeUs, decodeUs);
+    }
+
+    private static double time(Op op, int iterations) throws Exception {
+        Object sink = null;
+        // warmup ให้ JIT compile ก่อนจับเวลา
+        for (int i = 0; i < Math.max(1, iterations / 4); i++) {
+            sink = op.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = op.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == null) {
+            throw new IllegalStateException();
+        }
+        return elapsed / 1e3 / iterations;
+    }
+
+    private static byte[] javaSerialize(SaveData data, boolean gzip) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        try (ObjectOutputStream oos = new ObjectOutputStream(gzip ? new GZIPOutputStream(buffer) : buffer)) {
+            oos.writeObject(data);
+        }
+        return buffer.toByteArray();
+    }
+}
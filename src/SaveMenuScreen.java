@@ -91,32 +91,22 @@ class SaveMenuScreen {
     }
 
     void promptNewGame() {
-        final String[] result = new String[1];
-        try {
-            SwingUtilities.invokeAndWait(() -> result[0] = JOptionPane.showInputDialog(gp,
-                    "Enter save name (leave blank to skip saving):",
-                    "New Game", JOptionPane.PLAIN_MESSAGE));
-        } catch (Exception e) {
-            result[0] = null;
-        }
+        String result = gp.showDialog(() -> JOptionPane.showInputDialog(gp,
+                "Enter save name (leave blank to skip saving):",
+                "New Game", JOptionPane.PLAIN_MESSAGE), null);
 
-        String saveName = (result[0] != null) ? result[0].trim() : null;
+        String saveName = (result != null) ? result.trim() : null;
         gp.startNewGame(saveName != null && !saveName.isEmpty() ? saveName : null);
         gp.state = GamePanel.State.WORLD;
         gp.requestFocusInWindow();
     }
 
     void confirmDeleteSave(String saveName) {
-        final int[] result = new int[1];
-        try {
-            SwingUtilities.invokeAndWait(() -> result[0] = JOptionPane.showConfirmDialog(gp,
-                    "Delete save '" + saveName + "'?",
-                    "Confirm Delete", JOptionPane.YES_NO_OPTION));
-        } catch (Exception ex) {
-            result[0] = JOptionPane.NO_OPTION;
-        }
+        int result = gp.showDialog(() -> JOptionPane.showConfirmDialog(gp,
+                "Delete save '" + saveName + "'?",
+                "Confirm Delete", JOptionPane.YES_NO_OPTION), JOptionPane.NO_OPTION);
 
-        if (result[0] == JOptionPane.YES_OPTION) {
+        if (result == JOptionPane.YES_OPTION) {
             if (gp.deleteSave(saveName)) refresh();
         }
     }
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes saves off the game loop. The caller hands over a {@link SaveData} snapshot (already a copy of
+ * the live state, taken on the logic thread); a single background thread encodes it with {@link SaveCodec},
+ * writes {@code <name>.sav.tmp}, forces it to disk and moves it over {@code <name>.sav} atomically, so a crash
+ * mid-write leaves the previous save intact. Saves run one at a time in submission order.
+ * <p>
+ * Results are collected and handed back on the logic thread by {@link #drainResults}.
+ */
+final class SaveWriter {
+    static final String EXTENSION = ".sav";
+
+    private final Path directory;
+    private final ExecutorService executor;
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    private volatile Future<?> lastSubmitted;
+
+    SaveWriter(Path directory) {
+        this.directory = directory;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "SaveWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    Path fileFor(String name) {
+        return directory.resolve(name + EXTENSION);
+    }
+
+    void submit(String name, SaveData snapshot) {
+        lastSubmitted = executor.submit(() -> results.add(write(name, snapshot)));
+    }
+
+    /**
+     * Hands finished saves to {@code sink}; call from the logic thread.
+     */
+    void drainResults(Consumer<Result> sink) {
+        Result result;
+        while ((result = results.poll()) != null) {
+            sink.accept(result);
+        }
+    }
+
+    /**
+     * Blocks until every save submitted so far is on disk (or has failed), e.g. before loading.
+     */
+    void awaitIdle(long timeoutMillis) {
+        Future<?> pending = lastSubmitted;
+        if (pending == null || pending.isDone()) {
+            return;
+        }
+        try {
+            pending.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            System.err.println("Waiting for save failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finishes queued saves before returning (up to {@code timeoutMillis}) and stops the thread.
+     */
+    void close(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                System.err.println("Save still in progress at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Result write(String name, SaveData snapshot) {
+        long start = System.nanoTime();
+        Path target = fileFor(name);
+        try {
+            byte[] bytes = SaveCodec.encode(snapshot);
+            Files.createDirectories(directory);
+            writeAtomically(target, bytes);
+            return new Result(name, target, bytes.length, System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(name, target, 0, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Writes {@code bytes} to {@code target.tmp}, forces it to disk and moves it over {@code target}.
+     */
+    static void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+            throw e;
+        }
+    }
+
+    record Result(String name, Path file, int bytes, long nanos, Exception error) {
+        boolean succeeded() {
+            return error == null;
+        }
+    }
+}
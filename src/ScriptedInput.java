@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Key presses and releases pinned to logic steps, fed into an {@link InputManager} instead of the
+ * keyboard. With a loop length the timeline repeats (all keys are released at each wrap), which is how
+ * long soak runs keep the party moving.
+ * <p>
+ * Text form, one event per line, {@code #} starts a comment:
+ * <pre>
+ * loop 480
+ * 0 press RIGHT
+ * 120 release RIGHT
+ * 130 tap ENTER
+ * </pre>
+ * Recordings made by {@link InputRecorder} add {@code seed <n>}, {@code <step> consume <KEY>} and
+ * {@code check <step> <hex>} lines (the expected state checksum after that step).
+ */
+final class ScriptedInput {
+    private final List<Event> events = new ArrayList<>();
+    private final List<long[]> checks = new ArrayList<>();
+    private boolean sorted = true;
+    private long loopLength;
+    private long cycleStart;
+    private int cursor;
+    private int checkCursor;
+    private Long seed;
+
+    ScriptedInput press(long step, String key) {
+        return add(step, key, Action.PRESS);
+    }
+
+    ScriptedInput release(long step, String key) {
+        return add(step, key, Action.RELEASE);
+    }
+
+    ScriptedInput consume(long step, String key) {
+        return add(step, key, Action.CONSUME);
+    }
+
+    /**
+     * Presses {@code key} at {@code step} and releases it one step later, so it is seen exactly once by
+     * {@link InputManager#consumeIfPressed}.
+     */
+    ScriptedInput tap(long step, String key) {
+        return hold(step, key, 1);
+    }
+
+    ScriptedInput hold(long step, String key, long steps) {
+        press(step, key);
+        return release(step + Math.max(1, steps), key);
+    }
+
+    /**
+     * @param steps length of one cycle in logic steps; 0 plays the timeline once
+     */
+    ScriptedInput setLoopLength(long steps) {
+        loopLength = Math.max(0, steps);
+        return this;
+    }
+
+    long getLoopLength() {
+        return loopLength;
+    }
+
+    boolean hasSeed() {
+        return seed != null;
+    }
+
+    long getSeed() {
+        return seed != null ? seed : 0L;
+    }
+
+    /**
+     * Step of the last event or checksum; a one-shot script has nothing left to do after it.
+     */
+    long getLastStep() {
+        long last = 0;
+        for (Event event : events) {
+            last = Math.max(last, event.step);
+        }
+        for (long[] check : checks) {
+            last = Math.max(last, check[0]);
+        }
+        return last;
+    }
+
+    int getCheckCount() {
+        return checks.size();
+    }
+
+    /**
+     * Returns true and stores the recorded checksum in {@code out[0]} when one was recorded after
+     * {@code step}. Steps must be passed in increasing order.
+     */
+    boolean expectedChecksum(long step, long[] out) {
+        while (checkCursor < checks.size() && checks.get(checkCursor)[0] < step) {
+            checkCursor++;
+        }
+        if (checkCursor < checks.size() && checks.get(checkCursor)[0] == step) {
+            out[0] = checks.get(checkCursor)[1];
+            return true;
+        }
+        return false;
+    }
+
+    void reset() {
+        cycleStart = 0;
+        cursor = 0;
+        checkCursor = 0;
+    }
+
+    /**
+     * Applies every event due at or before {@code step}. Steps must be passed in increasing order.
+     */
+    void apply(long step, InputManager input) {
+        if (!sorted) {
+            events.sort(Comparator.comparingLong(e -> e.step));
+            sorted = true;
+        }
+        if (loopLength > 0 && step >= cycleStart + loopLength) {
+            // ปล่อยทุกปุ่มตอนวนรอบใหม่ กันปุ่มค้างถ้า script กดแล้วไม่ได้ปล่อยในรอบเดียวกัน
+            input.releaseAll();
+            cycleStart += (step - cycleStart) / loopLength * loopLength;
+            cursor = 0;
+        }
+        while (cursor < events.size()) {
+            Event event = events.get(cursor);
+            if (cycleStart + event.step > step) {
+                break;
+            }
+            switch (event.action) {
+                case PRESS -> input.press(event.key);
+                case RELEASE -> input.release(event.key);
+                case CONSUME -> input.markConsumed(event.key);
+            }
+            cursor++;
+        }
+    }
+
+    static ScriptedInput load(Path file) throws IOException {
+        ScriptedInput script = new ScriptedInput();
+        int lineNumber = 0;
+        for (String raw : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            int comment = raw.indexOf('#');
+            String line = (comment >= 0 ? raw.substring(0, comment) : raw).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts.length == 2 && parts[0].equalsIgnoreCase("loop")) {
+                    script.setLoopLength(Long.parseLong(parts[1]));
+                    continue;
+                }
+                if (parts.length == 2 && parts[0].equalsIgnoreCase("seed")) {
+                    script.seed = Long.parseLong(parts[1]);
+                    continue;
+                }
+                if (parts.length == 3 && parts[0].equalsIgnoreCase("check")) {
+                    script.checks.add(new long[]{Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[2], 16)});
+                    continue;
+                }
+                if (parts.length != 3) {
+                    throw new IOException(file + ":" + lineNumber + ": expected '<step> <press|release|tap|consume> <KEY>'");
+                }
+                long step = Long.parseLong(parts[0]);
+                String key = parts[2].toUpperCase(Locale.ROOT);
+                switch (parts[1].toLowerCase(Locale.ROOT)) {
+                    case "press" -> script.press(step, key);
+                    case "release" -> script.release(step, key);
+                    case "tap" -> script.tap(step, key);
+                    case "consume" -> script.consume(step, key);
+                    default -> throw new IOException(file + ":" + lineNumber + ": unknown action '" + parts[1] + "'");
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + lineNumber + ": bad number in '" + line + "'");
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Default soak script: a seeded random walk (straight and diagonal legs) that drifts out of the safe
+     * village into ambush zones, with interact/confirm taps so battles and dialogs run to completion and
+     * one pause/resume per cycle. The same seed always produces the same timeline.
+     */
+    static ScriptedInput wander(long seed, long cycleSteps) {
+        ScriptedInput script = new ScriptedInput();
+        Random random = new Random(seed);
+        String[][] directions = {
+                {"UP"}, {"DOWN"}, {"LEFT"}, {"RIGHT"},
+                {"UP", "LEFT"}, {"UP", "RIGHT"}, {"DOWN", "LEFT"}, {"DOWN", "RIGHT"}
+        };
+        long walkEnd = Math.max(120, cycleSteps - 60);
+        long step = 0;
+        while (step < walkEnd) {
+            long leg = Math.min(walkEnd - step, 30 + random.nextInt(240));
+            for (String key : directions[random.nextInt(directions.length)]) {
+                script.hold(step, key, Math.max(1, leg - 5));
+            }
+            if (random.nextInt(4) == 0) {
+                script.tap(step + leg / 2, "E");
+            }
+            step += leg;
+        }
+        for (long tap = 15; tap < walkEnd; tap += 30) {
+            script.tap(tap, "ENTER");
+        }
+        script.tap(walkEnd + 10, "ESC");
+        script.tap(walkEnd + 40, "ENTER");
+        return script.setLoopLength(walkEnd + 60);
+    }
+
+    private ScriptedInput add(long step, String key, Action action) {
+        Event event = new Event(Math.max(0, step), key, action);
+        if (!events.isEmpty() && events.get(events.size() - 1).step > event.step) {
+            sorted = false;
+        }
+        events.add(event);
+        return this;
+    }
+
+    private enum Action {
+        PRESS,
+        RELEASE,
+        CONSUME
+    }
+
+    private static final class Event {
+        final long step;
+        final String key;
+        final Action action;
+
+        Event(long step, String key, Action action) {
+            this.step = step;
+            this.key = key;
+            this.action = action;
+        }
+    }
+}
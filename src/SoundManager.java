@@ -1,144 +1,120 @@
-import javax.sound.sampled.*;
-import java.io.IOException;
-import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
-
-class SoundManager {
-    private final Map<String, Clip> clipCache = new HashMap<>();
-    private Clip ambientClip;
-    private Clip battleClip;
-    private boolean muted = false;
-    private float masterGain = 0.8f;
-
-    void setMuted(boolean muted) {
-        this.muted = muted;
-        refreshVolumes();
+import javax.sound.sampled.Clip;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AudioSink} backed by one {@link AudioMixer}: sound effects are decoded once into resident PCM and
+ * every play is a voice on the shared output line, instead of one {@link Clip} (and one OS line) per sound.
+ * Ambient and battle music is streamed by {@link AudioStreamer}, and changing track fades the old one out
+ * while the new one fades in over {@link #MUSIC_FADE_SECONDS}. Loading goes through {@link AudioAssets}, so
+ * none of these methods waits for the disk.
+ * Methods are called from the logic thread only; the channel state reported by
+ * {@link #isChannelPlaying} is what was last requested, since the mixer applies commands a block later.
+ */
+class SoundManager implements AudioSink {
+    static final float MUSIC_FADE_SECONDS = 0.75f;
+
+    private final AudioMixer mixer = new AudioMixer();
+    private final AudioStreamer streamer = new AudioStreamer();
+    private final AudioAssets assets = new AudioAssets(streamer);
+    private String ambientTrack;
+    private String battleTrack;
+
+    SoundManager() {
+        mixer.start();
+        setMasterGain(0.8f);
+        assets.preloadSfx(AudioAssets.DECLARED_SFX);
     }
 
-    void setMasterGain(float gain) {
-        masterGain = Math.max(0f, Math.min(1f, gain));
-        refreshVolumes();
+    @Override
+    public void setMuted(boolean muted) {
+        mixer.setMuted(muted);
     }
 
-    void playAmbient(String trackId) {
-        ambientClip = playLoop(trackId, ambientClip);
+    @Override
+    public void setMasterGain(float gain) {
+        mixer.setMasterGain(gain);
     }
 
-    void playBattle(String trackId) {
-        battleClip = playLoop(trackId, battleClip);
+    @Override
+    public void setChannelGain(Channel channel, float gain) {
+        mixer.setChannelGain(channel, gain);
     }
 
-    boolean isChannelPlaying(Channel channel) {
+    @Override
+    public void playAmbient(String trackId) {
+        ambientTrack = playLoop(trackId, Channel.AMBIENT, ambientTrack);
+    }
+
+    @Override
+    public void playBattle(String trackId) {
+        battleTrack = playLoop(trackId, Channel.BATTLE, battleTrack);
+    }
+
+    @Override
+    public boolean isChannelPlaying(Channel channel) {
         return switch (channel) {
-            case AMBIENT -> ambientClip != null && ambientClip.isActive();
-            case BATTLE -> battleClip != null && battleClip.isActive();
+            case AMBIENT -> ambientTrack != null;
+            case BATTLE -> battleTrack != null;
             case UI -> false;
         };
     }
 
-    void stopChannel(Channel channel) {
+    @Override
+    public void stopChannel(Channel channel) {
         switch (channel) {
-            case AMBIENT -> stopClip(ambientClip);
-            case BATTLE -> stopClip(battleClip);
-            case UI -> { /* reserved for later */ }
+            case AMBIENT -> ambientTrack = null;
+            case BATTLE -> battleTrack = null;
+            case UI -> { /* sfx หยุดเองเมื่อเล่นจบ */ }
         }
+        mixer.stopChannel(channel, channel == Channel.UI ? AudioMixer.DEFAULT_FADE_SECONDS : MUSIC_FADE_SECONDS);
     }
 
-    void stopAll() {
-        stopClip(ambientClip);
-        stopClip(battleClip);
+    @Override
+    public void stopAll() {
+        ambientTrack = null;
+        battleTrack = null;
+        mixer.stopAll(AudioMixer.DEFAULT_FADE_SECONDS);
     }
 
-    void playSfx(String sfxId) {
-        Clip clip = loadClip(sfxId);
-        if (clip == null) {
-            return;
-        }
-        clip.stop();
-        clip.setFramePosition(0);
-        applyVolume(clip);
-        clip.start();
+    @Override
+    public void playSfx(String sfxId) {
+        // ยังโหลดไม่เสร็จก็ข้ามเสียงนี้ไป ไม่รอ
+        mixer.play(assets.sfxIfReady(sfxId), Channel.UI, false, 1f, 0f);
     }
 
-    private Clip playLoop(String trackId, Clip existingClip) {
-        Clip clip = loadClip(trackId);
-        if (clip == null) {
-            return existingClip;
-        }
-        if (clip == existingClip && clip.isActive()) {
-            return clip;
+    @Override
+    public void prefetchMusic(Collection<String> trackIds) {
+        if (mixer.isRunning()) {
+            assets.prefetchMusic(trackIds);
         }
-        stopClip(existingClip);
-        clip.stop();
-        clip.setFramePosition(0);
-        applyVolume(clip);
-        clip.loop(Clip.LOOP_CONTINUOUSLY);
-        return clip;
     }
 
-    private Clip loadClip(String id) {
-        if (id == null || id.isEmpty()) {
-            return null;
-        }
-        Clip cached = clipCache.get(id);
-        if (cached != null) {
-            return cached;
-        }
-        String basePath = "resources/audio/" + id + ".wav";
-        try (AudioInputStream stream = openAudioStream(basePath)) {
-            Clip clip = AudioSystem.getClip();
-            clip.open(stream);
-            clipCache.put(id, clip);
-            return clip;
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("Audio load failed for " + id + ": " + e.getMessage());
-            return null;
-        }
+    @Override
+    public CompletableFuture<Boolean> loadState(String assetId) {
+        return assets.loadState(assetId);
     }
 
-    private void stopClip(Clip clip) {
-        if (clip != null) {
-            clip.stop();
-            clip.flush();
-        }
-    }
-
-    private void refreshVolumes() {
-        applyVolume(ambientClip);
-        applyVolume(battleClip);
-        for (Clip clip : clipCache.values()) {
-            applyVolume(clip);
-        }
+    @Override
+    public void close() {
+        assets.close();
+        mixer.close();
+        streamer.close();
     }
 
-    private void applyVolume(Clip clip) {
-        if (clip == null) {
-            return;
+    private String playLoop(String trackId, Channel channel, String current) {
+        if (trackId == null || trackId.isEmpty()) {
+            return current;
         }
-        FloatControl control;
-        try {
-            control = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-        } catch (IllegalArgumentException ex) {
-            return;
+        if (trackId.equals(current)) {
+            return current;
         }
-        float gain = muted ? control.getMinimum() : linearToDecibel(masterGain);
-        control.setValue(Math.max(control.getMinimum(), Math.min(control.getMaximum(), gain)));
-    }
-
-    private float linearToDecibel(float value) {
-        if (value <= 0f) {
-            return -80f;
-        }
-        return (float) (20.0 * Math.log10(value));
-    }
-
-    private AudioInputStream openAudioStream(String resourcePath) throws UnsupportedAudioFileException, IOException {
-        URL url = ResourceLoader.getResourceUrl(resourcePath);
-        if (url != null) {
-            return AudioSystem.getAudioInputStream(url);
+        mixer.stopChannel(channel, MUSIC_FADE_SECONDS);
+        if (mixer.isRunning()) {
+            // เปิดไฟล์และ decode บน thread ของ streamer ไม่ใช่ game loop
+            mixer.play(assets.takeMusic(trackId), channel, 1f, MUSIC_FADE_SECONDS);
         }
-        return AudioSystem.getAudioInputStream(new java.io.File(resourcePath));
+        return trackId;
     }
 
     enum Channel {
@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.Serial;
 import java.io.Serializable;
@@ -7,6 +6,7 @@ import java.io.Serializable;
 class Sprite implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 180);
     private final int frameW;
     private final int frameH;
     private final int framesPerRow;
@@ -14,6 +14,8 @@ class Sprite implements Serializable {
     private final double fps;
     private final boolean supportsAnimation;
     transient BufferedImage sheet;
+    // เงาวงรีวาดครั้งเดียวแล้ว blit; fillOval โปร่งแสงบน software pipeline สร้าง raster ใหม่ทุกครั้ง
+    private transient BufferedImage shadow;
     private double timeAccumulator = 0.0;
     private int currentFrame = 0;
     private int currentRow = 0;
@@ -67,22 +69,34 @@ class Sprite implements Serializable {
     }
 
     void draw(Graphics2D g, double screenX, double screenY, int drawW, int drawH) {
-        if (sheet == null) {
+        if (sheet == null || drawW <= 0 || drawH <= 0) {
             return;
         }
 
         int srcX = supportsAnimation ? currentFrame * frameW : 0;
         int srcY = supportsAnimation ? currentRow * frameH : 0;
-
-        AffineTransform old = g.getTransform();
-        g.translate(screenX, screenY);
-        double scaleX = drawW / (double) frameW;
-        double scaleY = drawH / (double) frameH;
-        g.scale(scaleX, scaleY);
-        g.setColor(new Color(0, 0, 0, 180));
-        g.fillOval(0, frameH - 10, frameW, 16);
-        g.drawImage(sheet, 0, 0, frameW, frameH, srcX, srcY, srcX + frameW, srcY + frameH, null);
-        g.setTransform(old);
+        // วาดด้วย destination rectangle ตรง ๆ: ไม่แตะ transform ของ Graphics ที่ใช้ร่วมกัน
+        int dx = (int) Math.round(screenX);
+        int dy = (int) Math.round(screenY);
+        int shadowTop = dy + (int) Math.round((frameH - 10) * drawH / (double) frameH);
+        int shadowBottom = dy + (int) Math.round((frameH + 6) * drawH / (double) frameH);
+        g.drawImage(getShadow(), dx, shadowTop, dx + drawW, shadowBottom, 0, 0, frameW, 16, null);
+        g.drawImage(sheet, dx, dy, dx + drawW, dy + drawH, srcX, srcY, srcX + frameW, srcY + frameH, null);
+    }
+
+    private BufferedImage getShadow() {
+        if (shadow == null) {
+            BufferedImage image = new BufferedImage(frameW, 16, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(SHADOW_COLOR);
+                g.fillOval(0, 0, frameW, 16);
+            } finally {
+                g.dispose();
+            }
+            shadow = image;
+        }
+        return shadow;
     }
 
     void setRow(int row) {
@@ -6,7 +6,10 @@ final class SpriteLoader {
     }
 
     static Sprite loadSheet(String path, int frameW, int frameH) throws IOException {
-        BufferedImage img = readImage(path);
+        return sheetOf(readImage(path), frameW, frameH);
+    }
+
+    static Sprite sheetOf(BufferedImage img, int frameW, int frameH) {
         int framesPerRow = img.getWidth() / frameW;
         int rows = img.getHeight() / frameH;
         return Sprite.fromSheet(img, frameW, frameH, framesPerRow, rows, framesPerRow);
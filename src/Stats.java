@@ -1,12 +1,39 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
+/**
+ * Stat values are kept in {@code int[]} indexed by {@link StatType#ordinal()}, with totals cached until a
+ * base value or modifier changes.
+ * <p>
+ * The serialized form is still the original one (three {@code EnumMap<StatType, Integer>} fields), see
+ * {@link #serialPersistentFields}, so existing {@code .sav} files load unchanged and saves written now
+ * still open in older builds.
+ */
 public class Stats implements Serializable {
     private static final long serialVersionUID = 1L;
-    private final EnumMap<StatType, Integer> baseValues = new EnumMap<>(StatType.class);
-    private final EnumMap<StatType, Integer> equipmentBonus = new EnumMap<>(StatType.class);
-    private final EnumMap<StatType, Integer> temporaryBonus = new EnumMap<>(StatType.class);
+    private static final StatType[] TYPES = StatType.values();
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("baseValues", EnumMap.class),
+            new ObjectStreamField("equipmentBonus", EnumMap.class),
+            new ObjectStreamField("temporaryBonus", EnumMap.class),
+            new ObjectStreamField("level", int.class),
+            new ObjectStreamField("exp", int.class),
+            new ObjectStreamField("currentHp", int.class),
+            new ObjectStreamField("maxBattlePoints", int.class),
+            new ObjectStreamField("currentBattlePoints", int.class)
+    };
+    // ไม่ final: readObject ต้องสร้างใหม่ (deserialization ไม่รัน field initializer)
+    private int[] baseValues = new int[TYPES.length];
+    private int[] equipmentBonus = new int[TYPES.length];
+    private int[] temporaryBonus = new int[TYPES.length];
+    private int[] totals = new int[TYPES.length];
+    private boolean totalsDirty;
     private int level = 1;
     private int exp = 0;
     private int currentHp = 1;
@@ -74,24 +101,31 @@ public class Stats implements Serializable {
     }
 
     void setBaseValue(StatType type, int value) {
-        baseValues.put(type, Math.max(0, value));
+        baseValues[type.ordinal()] = Math.max(0, value);
+        totalsDirty = true;
         clampDerivedValues();
     }
 
     int getBaseValue(StatType type) {
-        return baseValues.getOrDefault(type, 0);
+        return baseValues[type.ordinal()];
     }
 
     int getEquipmentBonus(StatType type) {
-        return equipmentBonus.getOrDefault(type, 0);
+        return equipmentBonus[type.ordinal()];
     }
 
     int getTemporaryBonus(StatType type) {
-        return temporaryBonus.getOrDefault(type, 0);
+        return temporaryBonus[type.ordinal()];
     }
 
     int getTotalValue(StatType type) {
-        return getBaseValue(type) + getEquipmentBonus(type) + getTemporaryBonus(type);
+        if (totalsDirty) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = baseValues[i] + equipmentBonus[i] + temporaryBonus[i];
+            }
+            totalsDirty = false;
+        }
+        return totals[type.ordinal()];
     }
 
     void applyEquipmentModifier(Map<StatType, Integer> modifiers) {
@@ -107,26 +141,21 @@ public class Stats implements Serializable {
     }
 
     void clearTemporaryModifiers() {
-        temporaryBonus.clear();
+        Arrays.fill(temporaryBonus, 0);
+        totalsDirty = true;
         clampDerivedValues();
     }
 
-    private void adjustModifiers(EnumMap<StatType, Integer> target,
+    private void adjustModifiers(int[] target,
                                  Map<StatType, Integer> modifiers,
                                  int direction) {
         if (modifiers == null || modifiers.isEmpty()) {
             return;
         }
         for (Map.Entry<StatType, Integer> entry : modifiers.entrySet()) {
-            StatType type = entry.getKey();
-            int delta = entry.getValue() * direction;
-            int updated = target.getOrDefault(type, 0) + delta;
-            if (updated == 0) {
-                target.remove(type);
-            } else {
-                target.put(type, updated);
-            }
+            target[entry.getKey().ordinal()] += entry.getValue() * direction;
         }
+        totalsDirty = true;
         clampDerivedValues();
     }
 
@@ -211,12 +240,10 @@ public class Stats implements Serializable {
         if (other == null) {
             return;
         }
-        baseValues.clear();
-        baseValues.putAll(other.baseValues);
-        equipmentBonus.clear();
-        equipmentBonus.putAll(other.equipmentBonus);
-        temporaryBonus.clear();
-        temporaryBonus.putAll(other.temporaryBonus);
+        System.arraycopy(other.baseValues, 0, baseValues, 0, baseValues.length);
+        System.arraycopy(other.equipmentBonus, 0, equipmentBonus, 0, equipmentBonus.length);
+        System.arraycopy(other.temporaryBonus, 0, temporaryBonus, 0, temporaryBonus.length);
+        totalsDirty = true;
         level = other.level;
         exp = other.exp;
         maxBattlePoints = other.maxBattlePoints;
@@ -251,9 +278,10 @@ public class Stats implements Serializable {
 
     Stats copy() {
         Stats copy = new Stats();
-        copy.baseValues.putAll(baseValues);
-        copy.equipmentBonus.putAll(equipmentBonus);
-        copy.temporaryBonus.putAll(temporaryBonus);
+        System.arraycopy(baseValues, 0, copy.baseValues, 0, baseValues.length);
+        System.arraycopy(equipmentBonus, 0, copy.equipmentBonus, 0, equipmentBonus.length);
+        System.arraycopy(temporaryBonus, 0, copy.temporaryBonus, 0, temporaryBonus.length);
+        copy.totalsDirty = true;
         copy.level = level;
         copy.exp = exp;
         copy.maxBattlePoints = maxBattlePoints;
@@ -262,6 +290,56 @@ public class Stats implements Serializable {
         return copy;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("baseValues", toMap(baseValues));
+        fields.put("equipmentBonus", toMap(equipmentBonus));
+        fields.put("temporaryBonus", toMap(temporaryBonus));
+        fields.put("level", level);
+        fields.put("exp", exp);
+        fields.put("currentHp", currentHp);
+        fields.put("maxBattlePoints", maxBattlePoints);
+        fields.put("currentBattlePoints", currentBattlePoints);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        baseValues = fromMap(fields.get("baseValues", null));
+        equipmentBonus = fromMap(fields.get("equipmentBonus", null));
+        temporaryBonus = fromMap(fields.get("temporaryBonus", null));
+        totals = new int[TYPES.length];
+        totalsDirty = true;
+        level = fields.get("level", 1);
+        exp = fields.get("exp", 0);
+        currentHp = fields.get("currentHp", 1);
+        maxBattlePoints = fields.get("maxBattlePoints", 10);
+        currentBattlePoints = fields.get("currentBattlePoints", 10);
+    }
+
+    // รูปแบบเดิมเก็บเฉพาะค่าที่ไม่เป็น 0 (modifier ที่กลับเป็น 0 ถูกลบออกจาก map)
+    private static EnumMap<StatType, Integer> toMap(int[] values) {
+        EnumMap<StatType, Integer> map = new EnumMap<>(StatType.class);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0) {
+                map.put(TYPES[i], values[i]);
+            }
+        }
+        return map;
+    }
+
+    private static int[] fromMap(Object stored) {
+        int[] values = new int[TYPES.length];
+        if (stored instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (entry.getKey() instanceof StatType type && entry.getValue() instanceof Integer value) {
+                    values[type.ordinal()] = value;
+                }
+            }
+        }
+        return values;
+    }
+
     private void clampDerivedValues() {
         currentHp = clamp(currentHp, 0, getMaxHp());
         currentBattlePoints = clamp(currentBattlePoints, 0, maxBattlePoints);
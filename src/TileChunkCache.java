@@ -0,0 +1,214 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Bakes a stack of tile layers into fixed-size chunk images so a frame only blits a handful of
+ * pre-composited images instead of one image per visible tile. Chunks are baked lazily the first
+ * time they become visible and evicted least-recently-used once the byte budget is exceeded.
+ */
+final class TileChunkCache {
+    static final int DEFAULT_CHUNK_TILES = 16;
+    static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024;
+
+    private final int tileW, tileH, cols, rows;
+    private final int chunkTiles;
+    private final int chunkCols, chunkRows;
+    private final ChunkPainter painter;
+    private final Chunk[] chunks;
+    // LRU list: head is most recently drawn, tail is next to evict
+    private Chunk head;
+    private Chunk tail;
+    private long budgetBytes;
+    private long residentBytes;
+    private int residentChunks;
+
+    TileChunkCache(int tileW, int tileH, int cols, int rows, int chunkTiles, long budgetBytes, ChunkPainter painter) {
+        this.tileW = Math.max(1, tileW);
+        this.tileH = Math.max(1, tileH);
+        this.cols = Math.max(0, cols);
+        this.rows = Math.max(0, rows);
+        this.chunkTiles = Math.max(1, chunkTiles);
+        this.chunkCols = (this.cols + this.chunkTiles - 1) / this.chunkTiles;
+        this.chunkRows = (this.rows + this.chunkTiles - 1) / this.chunkTiles;
+        this.budgetBytes = Math.max(0L, budgetBytes);
+        this.painter = painter;
+        this.chunks = new Chunk[chunkCols * chunkRows];
+        for (int cy = 0; cy < chunkRows; cy++) {
+            for (int cx = 0; cx < chunkCols; cx++) {
+                chunks[cy * chunkCols + cx] = new Chunk(cx, cy);
+            }
+        }
+    }
+
+    synchronized void draw(Graphics2D g, Camera cam) {
+        if (g == null || chunks.length == 0) {
+            return;
+        }
+        int chunkPixelW = chunkTiles * tileW;
+        int chunkPixelH = chunkTiles * tileH;
+
+        int startX = 0;
+        int endX = chunkCols - 1;
+        int startY = 0;
+        int endY = chunkRows - 1;
+        if (cam != null) {
+            double halfW = cam.getViewWidth() / 2.0;
+            double halfH = cam.getViewHeight() / 2.0;
+            double left = Math.max(0, cam.getX() - halfW - tileW);
+            double top = Math.max(0, cam.getY() - halfH - tileH);
+            double right = Math.min((double) cols * tileW, cam.getX() + halfW + tileW);
+            double bottom = Math.min((double) rows * tileH, cam.getY() + halfH + tileH);
+            if (right <= left || bottom <= top) {
+                return;
+            }
+            startX = Math.max(0, (int) (left / chunkPixelW));
+            endX = Math.min(chunkCols - 1, (int) ((right - 1) / chunkPixelW));
+            startY = Math.max(0, (int) (top / chunkPixelH));
+            endY = Math.min(chunkRows - 1, (int) ((bottom - 1) / chunkPixelH));
+        }
+
+        for (int cy = startY; cy <= endY; cy++) {
+            for (int cx = startX; cx <= endX; cx++) {
+                Chunk chunk = chunks[cy * chunkCols + cx];
+                if (!chunk.baked) {
+                    bake(chunk);
+                }
+                touch(chunk);
+                if (chunk.image != null) {
+                    g.drawImage(chunk.image, cx * chunkPixelW, cy * chunkPixelH, null);
+                }
+            }
+        }
+        evictOverBudget();
+    }
+
+    synchronized void invalidateTile(int tileX, int tileY) {
+        if (tileX < 0 || tileX >= cols || tileY < 0 || tileY >= rows) {
+            return;
+        }
+        Chunk chunk = chunks[(tileY / chunkTiles) * chunkCols + tileX / chunkTiles];
+        release(chunk);
+    }
+
+    synchronized void invalidateAll() {
+        for (Chunk chunk : chunks) {
+            release(chunk);
+        }
+    }
+
+    synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = Math.max(0L, budgetBytes);
+        evictOverBudget();
+    }
+
+    synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    synchronized int getResidentChunks() {
+        return residentChunks;
+    }
+
+    private void bake(Chunk chunk) {
+        int startCol = chunk.cx * chunkTiles;
+        int startRow = chunk.cy * chunkTiles;
+        int endCol = Math.min(cols, startCol + chunkTiles) - 1;
+        int endRow = Math.min(rows, startRow + chunkTiles) - 1;
+        chunk.baked = true;
+        if (painter == null || !painter.hasTiles(startCol, startRow, endCol, endRow)) {
+            // Nothing to draw here; remember that without holding an image
+            chunk.image = null;
+            return;
+        }
+
+        int width = (endCol - startCol + 1) * tileW;
+        int height = (endRow - startRow + 1) * tileH;
+        BufferedImage image = CompatibleImages.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.translate(-startCol * tileW, -startRow * tileH);
+            painter.paint(g, startCol, startRow, endCol, endRow);
+        } finally {
+            g.dispose();
+        }
+        chunk.image = image;
+        chunk.bytes = (long) width * height * 4L;
+        residentBytes += chunk.bytes;
+        residentChunks++;
+    }
+
+    private void release(Chunk chunk) {
+        unlink(chunk);
+        if (chunk.image != null) {
+            chunk.image.flush();
+            residentBytes -= chunk.bytes;
+            residentChunks--;
+        }
+        chunk.image = null;
+        chunk.bytes = 0L;
+        chunk.baked = false;
+    }
+
+    private void evictOverBudget() {
+        // Keep at least the most recent chunk so a tiny budget degrades to re-baking, not to blank tiles
+        while (residentBytes > budgetBytes && tail != null && tail != head) {
+            release(tail);
+        }
+    }
+
+    private void touch(Chunk chunk) {
+        if (head == chunk) {
+            return;
+        }
+        unlink(chunk);
+        chunk.next = head;
+        if (head != null) {
+            head.prev = chunk;
+        }
+        head = chunk;
+        if (tail == null) {
+            tail = chunk;
+        }
+        chunk.linked = true;
+    }
+
+    private void unlink(Chunk chunk) {
+        if (!chunk.linked) {
+            return;
+        }
+        if (chunk.prev != null) {
+            chunk.prev.next = chunk.next;
+        } else {
+            head = chunk.next;
+        }
+        if (chunk.next != null) {
+            chunk.next.prev = chunk.prev;
+        } else {
+            tail = chunk.prev;
+        }
+        chunk.prev = null;
+        chunk.next = null;
+        chunk.linked = false;
+    }
+
+    interface ChunkPainter {
+        boolean hasTiles(int startCol, int startRow, int endCol, int endRow);
+
+        void paint(Graphics2D g, int startCol, int startRow, int endCol, int endRow);
+    }
+
+    private static final class Chunk {
+        final int cx, cy;
+        BufferedImage image;
+        long bytes;
+        boolean baked;
+        boolean linked;
+        Chunk prev, next;
+
+        Chunk(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Swept box-versus-tile collision over a {@link TileMap}'s collision data. The box is walked along its
+ * motion vector one tile boundary at a time (DDA style), so fast movers cannot tunnel through thin walls
+ * and stop flush against the first solid tile instead of being rejected outright.
+ * <p>
+ * Results are kept in fields rather than returned as objects so a call never allocates; one instance is
+ * meant to be shared by everything that moves on the logic thread.
+ */
+final class TileCollider {
+    private static final int MAX_SLIDES = 3;
+
+    private boolean hit;
+    private double hitTime = 1.0;
+    private int normalX;
+    private int normalY;
+    private double contactLeft;
+    private double contactTop;
+    private double movedX;
+    private double movedY;
+
+    /**
+     * Sweeps the box {@code [left, left + width) x [top, top + height)} by {@code (dx, dy)}.
+     * Tiles the box already overlaps are ignored so an entity that starts inside a wall can still leave it.
+     *
+     * @return true when a solid tile (or the map edge) is reached before the full motion completes
+     */
+    boolean sweep(TileMap map, double left, double top, double width, double height, double dx, double dy) {
+        hit = false;
+        hitTime = 1.0;
+        normalX = 0;
+        normalY = 0;
+        if (map == null || map.tileW <= 0 || map.tileH <= 0 || (dx == 0.0 && dy == 0.0)) {
+            return false;
+        }
+        int tw = map.tileW;
+        int th = map.tileH;
+        double right = left + width;
+        double bottom = top + height;
+
+        int colLo = firstCell(left, tw);
+        int colHi = lastCell(right, tw);
+        int rowLo = firstCell(top, th);
+        int rowHi = lastCell(bottom, th);
+
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+        double tDeltaX = stepX != 0 ? tw / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? th / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        double tNextX = stepX > 0 ? ((colHi + 1) * (double) tw - right) / dx
+                : (stepX < 0 ? (colLo * (double) tw - left) / dx : Double.POSITIVE_INFINITY);
+        double tNextY = stepY > 0 ? ((rowHi + 1) * (double) th - bottom) / dy
+                : (stepY < 0 ? (rowLo * (double) th - top) / dy : Double.POSITIVE_INFINITY);
+
+        while (true) {
+            boolean crossX = tNextX <= tNextY;
+            double t = crossX ? tNextX : tNextY;
+            if (t > 1.0) {
+                return false;
+            }
+
+            // Drop rows/columns the trailing edges have already left by time t
+            if (stepX > 0) {
+                colLo = Math.max(colLo, firstCell(left + dx * t, tw));
+            } else if (stepX < 0) {
+                colHi = Math.min(colHi, lastCell(right + dx * t, tw));
+            }
+            if (stepY > 0) {
+                rowLo = Math.max(rowLo, firstCell(top + dy * t, th));
+            } else if (stepY < 0) {
+                rowHi = Math.min(rowHi, lastCell(bottom + dy * t, th));
+            }
+
+            if (crossX) {
+                int col = stepX > 0 ? colHi + 1 : colLo - 1;
+                if (anySolidInColumn(map, col, rowLo, rowHi)) {
+                    hit = true;
+                    hitTime = Math.max(0.0, t);
+                    normalX = -stepX;
+                    contactLeft = stepX > 0 ? col * (double) tw - width : (col + 1) * (double) tw;
+                    contactTop = top + dy * hitTime;
+                    return true;
+                }
+                if (stepX > 0) {
+                    colHi = col;
+                } else {
+                    colLo = col;
+                }
+                tNextX += tDeltaX;
+            } else {
+                int row = stepY > 0 ? rowHi + 1 : rowLo - 1;
+                if (anySolidInRow(map, row, colLo, colHi)) {
+                    hit = true;
+                    hitTime = Math.max(0.0, t);
+                    normalY = -stepY;
+                    contactLeft = left + dx * hitTime;
+                    contactTop = stepY > 0 ? row * (double) th - height : (row + 1) * (double) th;
+                    return true;
+                }
+                if (stepY > 0) {
+                    rowHi = row;
+                } else {
+                    rowLo = row;
+                }
+                tNextY += tDeltaY;
+            }
+        }
+    }
+
+    /**
+     * Moves the box by {@code (dx, dy)}, stopping at walls and sliding the remaining motion along them.
+     * The applied displacement is available from {@link #getMovedX()} / {@link #getMovedY()}.
+     *
+     * @return true when the box touched a wall on the way
+     */
+    boolean move(TileMap map, double left, double top, double width, double height, double dx, double dy) {
+        double x = left;
+        double y = top;
+        double remX = dx;
+        double remY = dy;
+        boolean touched = false;
+        double firstTime = 1.0;
+        int firstNormalX = 0;
+        int firstNormalY = 0;
+
+        for (int i = 0; i < MAX_SLIDES && (remX != 0.0 || remY != 0.0); i++) {
+            if (!sweep(map, x, y, width, height, remX, remY)) {
+                x += remX;
+                y += remY;
+                break;
+            }
+            if (!touched) {
+                touched = true;
+                firstTime = hitTime;
+                firstNormalX = normalX;
+                firstNormalY = normalY;
+            }
+            // Snap to the exact tile edge so rounding never leaves the box overlapping the wall
+            x = contactLeft;
+            y = contactTop;
+            double remaining = 1.0 - hitTime;
+            if (normalX != 0) {
+                remX = 0.0;
+                remY *= remaining;
+            } else {
+                remX *= remaining;
+                remY = 0.0;
+            }
+        }
+
+        movedX = x - left;
+        movedY = y - top;
+        hit = touched;
+        hitTime = firstTime;
+        normalX = firstNormalX;
+        normalY = firstNormalY;
+        return touched;
+    }
+
+    boolean hasHit() {
+        return hit;
+    }
+
+    double getHitTime() {
+        return hitTime;
+    }
+
+    int getNormalX() {
+        return normalX;
+    }
+
+    int getNormalY() {
+        return normalY;
+    }
+
+    double getMovedX() {
+        return movedX;
+    }
+
+    double getMovedY() {
+        return movedY;
+    }
+
+    private static boolean anySolidInColumn(TileMap map, int col, int rowLo, int rowHi) {
+        for (int row = rowLo; row <= rowHi; row++) {
+            if (map.isSolid(col, row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anySolidInRow(TileMap map, int row, int colLo, int colHi) {
+        for (int col = colLo; col <= colHi; col++) {
+            if (map.isSolid(col, row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int firstCell(double edge, int size) {
+        return (int) Math.floor(edge / size);
+    }
+
+    private static int lastCell(double edge, int size) {
+        return (int) Math.ceil(edge / size) - 1;
+    }
+}
@@ -1,19 +1,45 @@
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class TileMap {
     private static final long GID_MASK = 0x0FFFFFFFL;
+    static final int COMPILED_MAGIC = 0x504D5753; // "SWMP"
+    static final int COMPILED_VERSION = 1;
+    static final String COMPILED_EXTENSION = ".tmc";
     private final List<Layer> backgroundLayers = new ArrayList<>();
     private final List<Layer> foregroundLayers = new ArrayList<>();
     private final List<Layer> collisionLayers = new ArrayList<>();
@@ -21,144 +47,547 @@ public class TileMap {
     int tileW, tileH, cols, rows, pixelWidth, pixelHeight;
     boolean decorationVisible;
     List<TilesetEntry> tilesets = new ArrayList<>();
+    // GID-indexed lookup built once after load so drawing a tile never searches the tilesets
+    Tileset[] gidTilesets = new Tileset[0];
+    int[] gidSrcX = new int[0];
+    int[] gidSrcY = new int[0];
+    // collision layers รวมเป็น bitset เดียว (1 bit ต่อ tile) และ zone layers รวมเป็น byte ต่อ tile
+    private long[] solidBits = new long[0];
+    private byte[] zoneGrid = new byte[0];
+    // bit mask ของ zone ที่ติดกับแต่ละ zone, คำนวณใหม่เมื่อ zoneGrid เปลี่ยน
+    private int[] zoneNeighbours;
+    // swept collision ใช้ร่วมกันทุกตัวที่เดินบน map นี้ (logic thread เดียว, ไม่ allocate ต่อการเรียก)
+    private final TileCollider collider = new TileCollider();
+    private TileChunkCache groundCache;
+    private TileChunkCache decorationCache;
+    private long chunkCacheBudgetBytes = TileChunkCache.DEFAULT_BUDGET_BYTES;
 
     public TileMap() {
     }
 
+    /**
+     * Loads the compiled form of a map when it exists and was built from the current TMX/TSX sources,
+     * otherwise parses the TMX.
+     */
+    public static TileMap load(String tmxPath) throws Exception {
+        try {
+            TileMap compiled = loadCompiled(compiledPathFor(tmxPath), tmxPath);
+            if (compiled != null) {
+                return compiled;
+            }
+        } catch (IOException e) {
+            System.out.println("Compiled map unusable, falling back to TMX: " + e.getMessage());
+        }
+        return loadFromTMX(tmxPath);
+    }
+
     // ---------------- Load TMX ----------------
     public static TileMap loadFromTMX(String path) throws Exception {
         String normalizedPath = ResourceLoader.normalize(path);
         if (normalizedPath == null || normalizedPath.isEmpty()) {
             throw new IllegalArgumentException("TMX path is empty");
         }
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        Document doc;
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+        TileMap tm = new TileMap();
         try (InputStream stream = ResourceLoader.openStream(normalizedPath)) {
-            doc = db.parse(stream);
+            XMLStreamReader reader = factory.createXMLStreamReader(stream);
+            try {
+                int layerIndex = 0;
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    switch (reader.getLocalName()) {
+                        case "map" -> {
+                            tm.tileW = Integer.parseInt(reader.getAttributeValue(null, "tilewidth"));
+                            tm.tileH = Integer.parseInt(reader.getAttributeValue(null, "tileheight"));
+                            tm.cols = Integer.parseInt(reader.getAttributeValue(null, "width"));
+                            tm.rows = Integer.parseInt(reader.getAttributeValue(null, "height"));
+                            tm.pixelWidth = tm.cols * tm.tileW;
+                            tm.pixelHeight = tm.rows * tm.tileH;
+                        }
+                        case "tileset" -> readTileset(reader, normalizedPath, tm);
+                        case "layer" -> tm.addLayer(readLayer(reader, layerIndex++, tm.cols, tm.rows));
+                        default -> {
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
         }
-        Element mapEl = (Element) doc.getElementsByTagName("map").item(0);
-        int tileW = Integer.parseInt(mapEl.getAttribute("tilewidth"));
-        int tileH = Integer.parseInt(mapEl.getAttribute("tileheight"));
-        int width = Integer.parseInt(mapEl.getAttribute("width"));
-        int height = Integer.parseInt(mapEl.getAttribute("height"));
 
-        TileMap tm = new TileMap();
-        tm.tileW = tileW;
-        tm.tileH = tileH;
-        tm.cols = width;
-        tm.rows = height;
-        tm.pixelWidth = width * tileW;
-        tm.pixelHeight = height * tileH;
-
-
-        // ---------------- Load Tilesets ----------------
-        NodeList tilesetNodes = doc.getElementsByTagName("tileset");
-        for (int i = 0; i < tilesetNodes.getLength(); i++) {
-            Element tsEl = (Element) tilesetNodes.item(i);
-            int firstGid = Integer.parseInt(tsEl.getAttribute("firstgid"));
-            String source = tsEl.getAttribute("source");
-            Tileset ts;
-            if (!source.isEmpty()) {
-                String tsxPath = ResourceLoader.resolve(normalizedPath, source);
-                ts = Tileset.loadFromTSX(tsxPath, firstGid);
-            } else {
-                int tw = Integer.parseInt(tsEl.getAttribute("tilewidth"));
-                int th = Integer.parseInt(tsEl.getAttribute("tileheight"));
-                ts = Tileset.generatePlaceholder(tw, th);
-            }
-            tm.tilesets.add(new TilesetEntry(firstGid, ts));
-        }
-
-        // ---------------- Load layers ----------------
-        NodeList layerNodes = doc.getElementsByTagName("layer");
-        int bgCount = 0, fgCount = 0;
-        for (int i = 0; i < layerNodes.getLength(); i++) {
-            Element lEl = (Element) layerNodes.item(i);
-            String name = lEl.getAttribute("name");
-            boolean isVisible = !"0".equals(lEl.getAttribute("visible"));
-
-            // อ่าน properties
-            Map<String, String> props = readProperties(lEl);
-            int type = parseInt(props.get("type"));
-
-            Element dataEl = (Element) lEl.getElementsByTagName("data").item(0);
-            // รองรับ CSV เท่านั้นในโค้ดนี้
-            String[] tokens = dataEl.getTextContent().trim().split("\\s*,\\s*");
-
-            int[][] layerData = new int[height][width];
-            int idx = 0;
-
-            for (int r = 0; r < height; r++) {
-                for (int c = 0; c < width; c++) {
-                    if (idx < tokens.length) {
-                        String token = tokens[idx++].trim();
-                        if (token.isEmpty()) {
-                            layerData[r][c] = 0;
-                            continue;
+        // ถ้าไม่มีชื่อ decoration แต่มี foreground ให้เปิด decorationVisible ไว้
+        tm.decorationVisible = !tm.foregroundLayers.isEmpty(); // ตามเดิม
+        tm.buildGidLookup();
+        tm.buildCollisionIndex();
+
+        return tm;
+    }
+
+    // ---------------- Load Tilesets ----------------
+    private static void readTileset(XMLStreamReader reader, String mapPath, TileMap tm) throws Exception {
+        int firstGid = Integer.parseInt(reader.getAttributeValue(null, "firstgid"));
+        String source = attribute(reader, "source");
+        Tileset ts;
+        if (!source.isEmpty()) {
+            String tsxPath = ResourceLoader.resolve(mapPath, source);
+            ts = Tileset.loadFromTSX(tsxPath, firstGid);
+        } else {
+            int tw = Integer.parseInt(reader.getAttributeValue(null, "tilewidth"));
+            int th = Integer.parseInt(reader.getAttributeValue(null, "tileheight"));
+            ts = Tileset.generatePlaceholder(tw, th);
+        }
+        ts.source = source;
+        skipElement(reader);
+        tm.tilesets.add(new TilesetEntry(firstGid, ts));
+    }
+
+    // ---------------- Load layers ----------------
+    private static Layer readLayer(XMLStreamReader reader, int index, int width, int height) throws Exception {
+        String name = attribute(reader, "name");
+        boolean isVisible = !"0".equals(reader.getAttributeValue(null, "visible"));
+        Map<String, String> props = new HashMap<>();
+        int[] layerData = new int[width * height];
+
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    // อ่าน properties
+                    case "property" -> {
+                        String key = attribute(reader, "name");
+                        String v = reader.getAttributeValue(null, "value");
+                        if (v == null || v.isEmpty()) {
+                            v = reader.getElementText();
+                        } else {
+                            skipElement(reader);
+                        }
+                        if (!key.isEmpty() && v != null) {
+                            props.put(key, v.trim());
                         }
+                    }
+                    case "data" -> readLayerData(reader, layerData, width, height);
+                    default -> depth++;
+                }
+            }
+        }
+
+        // สร้าง Layer object
+        Layer L = new Layer();
+        L.name = name.isEmpty() ? "layer_" + index : name;
+        L.visible = isVisible;
+        L.type = parseInt(props.get("type"));
+        L.width = width;
+        L.data = IntBuffer.wrap(layerData);
+        L.props.putAll(props);
+        return L;
+    }
+
+    private void addLayer(Layer L) {
+        // กระจายเข้าบัคเก็ต
+        switch (L.type) {
+            case 0 -> backgroundLayers.add(L);
+            case 1 -> foregroundLayers.add(L);
+            case 2 -> collisionLayers.add(L);
+            case 3 -> zoneLayers.add(L);
+            default -> {
+            }
+        }
+    }
+
+    private static void readLayerData(XMLStreamReader reader, int[] layerData, int width, int height) throws Exception {
+        String encoding = attribute(reader, "encoding");
+        String compression = attribute(reader, "compression");
+        if ("csv".equals(encoding)) {
+            readCsvData(reader, layerData, width, height);
+        } else if ("base64".equals(encoding)) {
+            readBase64Data(reader.getElementText(), compression, layerData, width, height);
+        } else if (encoding.isEmpty()) {
+            readXmlTileData(reader, layerData, width, height);
+        } else {
+            throw new IllegalArgumentException("Unsupported TMX layer encoding: " + encoding);
+        }
+    }
 
-                        long raw = Long.parseUnsignedLong(token);
-                        int gid = (int) (raw & GID_MASK);
-                        layerData[r][c] = gid;
-                    } else {
-                        layerData[r][c] = 0;
+    private static void readXmlTileData(XMLStreamReader reader, int[] layerData, int width, int height) throws Exception {
+        int total = width * height;
+        int idx = 0;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if ("tile".equals(reader.getLocalName())) {
+                    String gid = reader.getAttributeValue(null, "gid");
+                    if (idx < total && gid != null && !gid.isEmpty()) {
+                        layerData[idx] = (int) (Long.parseUnsignedLong(gid.trim()) & GID_MASK);
                     }
+                    idx++;
                 }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
+        }
+    }
 
-            // สร้าง Layer object
-            Layer L = new Layer();
-            L.name = name.isEmpty() ? "layer_" + i : name;
-            L.visible = isVisible;
-            L.type = type;
-            L.data = layerData;
-            L.props.putAll(props);
+    /**
+     * Scans CSV tile data straight from the parser's character buffer, so no per-tile String is created.
+     * Text may arrive in several chunks; the number being scanned carries over between them.
+     */
+    private static void readCsvData(XMLStreamReader reader, int[] layerData, int width, int height) throws Exception {
+        int total = width * height;
+        int idx = 0;
+        long value = 0;
+        boolean hasDigits = false;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event != XMLStreamConstants.CHARACTERS && event != XMLStreamConstants.SPACE) {
+                continue;
+            }
+            char[] text = reader.getTextCharacters();
+            int end = reader.getTextStart() + reader.getTextLength();
+            for (int i = reader.getTextStart(); i < end; i++) {
+                char ch = text[i];
+                if (ch >= '0' && ch <= '9') {
+                    value = value * 10 + (ch - '0');
+                    if (value > 0xFFFFFFFFL) {
+                        throw new NumberFormatException("Tile GID out of range at index " + idx);
+                    }
+                    hasDigits = true;
+                } else if (ch == ',') {
+                    // ช่องว่างระหว่างคอมมาถือเป็น 0 เหมือนเดิม
+                    if (idx < total) {
+                        layerData[idx] = (int) (value & GID_MASK);
+                    }
+                    idx++;
+                    value = 0;
+                    hasDigits = false;
+                } else if (!Character.isWhitespace(ch)) {
+                    throw new NumberFormatException("Unexpected character '" + ch + "' in CSV layer data");
+                }
+            }
+        }
+        if (hasDigits && idx < total) {
+            layerData[idx] = (int) (value & GID_MASK);
+        }
+    }
 
-            // กระจายเข้าบัคเก็ต
-            switch (type) {
-                case 0 -> {
-                    tm.backgroundLayers.add(L);
-                    bgCount++;
+    private static void readBase64Data(String text, String compression, int[] layerData, int width, int height) throws IOException {
+        byte[] decoded = Base64.getMimeDecoder().decode(text.trim());
+        InputStream raw = new ByteArrayInputStream(decoded);
+        InputStream in = switch (compression) {
+            case "" -> raw;
+            case "zlib" -> new InflaterInputStream(raw);
+            case "gzip" -> new GZIPInputStream(raw);
+            default -> throw new IOException("Unsupported TMX layer compression: " + compression);
+        };
+        try (InputStream stream = new BufferedInputStream(in)) {
+            byte[] tile = new byte[4];
+            int total = width * height;
+            for (int idx = 0; idx < total; idx++) {
+                if (stream.readNBytes(tile, 0, 4) < 4) {
+                    return;
                 }
-                case 1 -> {
-                    tm.foregroundLayers.add(L);
-                    System.out.println("add fore");
-                    fgCount++;
+                // little-endian uint32 ตามสเปก Tiled
+                long gid = (tile[0] & 0xFFL)
+                        | (tile[1] & 0xFFL) << 8
+                        | (tile[2] & 0xFFL) << 16
+                        | (tile[3] & 0xFFL) << 24;
+                layerData[idx] = (int) (gid & GID_MASK);
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws Exception {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // ---------------- Compiled map ----------------
+    // รูปแบบไฟล์ (little-endian):
+    //   int magic, int version, byte[32] SHA-256 ของ TMX+TSX, int tileW, tileH, cols, rows
+    //   int tilesetCount, { int firstGid, str source, str imageSource, int tileW, tileH, imageW, imageH }
+    //   int layerCount,   { str name, byte visible, int type, int propCount, { str key, str value }, int dataOffset }
+    //   ข้อมูล GID ของแต่ละ layer (cols*rows int) เริ่มที่ offset ที่ align 4 ไบต์
+    // str = int length + UTF-8 bytes
+    static String compiledPathFor(String tmxPath) {
+        String normalized = ResourceLoader.normalize(tmxPath);
+        if (normalized != null && normalized.endsWith(".tmx")) {
+            normalized = normalized.substring(0, normalized.length() - 4);
+        }
+        return normalized + COMPILED_EXTENSION;
+    }
+
+    static TileMap loadCompiled(String compiledPath, String tmxPath) throws IOException {
+        if (!ResourceLoader.exists(compiledPath)) {
+            return null;
+        }
+        ByteBuffer buffer = mapCompiled(compiledPath).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != COMPILED_MAGIC) {
+                throw new IOException("Not a compiled map: " + compiledPath);
+            }
+            if (buffer.getInt() != COMPILED_VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[32];
+            buffer.get(hash);
+
+            TileMap tm = new TileMap();
+            tm.tileW = buffer.getInt();
+            tm.tileH = buffer.getInt();
+            tm.cols = buffer.getInt();
+            tm.rows = buffer.getInt();
+            tm.pixelWidth = tm.cols * tm.tileW;
+            tm.pixelHeight = tm.rows * tm.tileH;
+
+            int tilesetCount = buffer.getInt();
+            int[] firstGids = new int[tilesetCount];
+            String[] sources = new String[tilesetCount];
+            String[] imageSources = new String[tilesetCount];
+            int[][] sizes = new int[tilesetCount][];
+            List<String> tsxPaths = new ArrayList<>();
+            for (int i = 0; i < tilesetCount; i++) {
+                firstGids[i] = buffer.getInt();
+                sources[i] = readString(buffer);
+                imageSources[i] = readString(buffer);
+                sizes[i] = new int[]{buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()};
+                if (!sources[i].isEmpty()) {
+                    tsxPaths.add(ResourceLoader.resolve(tmxPath, sources[i]));
                 }
-                case 2 -> tm.collisionLayers.add(L);
-                case 3 -> tm.zoneLayers.add(L);
+            }
+            if (!Arrays.equals(hash, computeSourceHash(tmxPath, tsxPaths))) {
+                System.out.println("Compiled map is stale: " + compiledPath);
+                return null;
+            }
 
+            for (int i = 0; i < tilesetCount; i++) {
+                int[] size = sizes[i];
+                Tileset ts;
+                if (sources[i].isEmpty()) {
+                    ts = Tileset.generatePlaceholder(size[0], size[1]);
+                } else {
+                    String tsxPath = ResourceLoader.resolve(tmxPath, sources[i]);
+                    ts = Tileset.fromImageSource(tsxPath, imageSources[i], size[0], size[1], size[2], size[3]);
+                }
+                ts.source = sources[i];
+                tm.tilesets.add(new TilesetEntry(firstGids[i], ts));
             }
 
+            int layerCount = buffer.getInt();
+            int cells = tm.cols * tm.rows;
+            for (int i = 0; i < layerCount; i++) {
+                Layer L = new Layer();
+                L.name = readString(buffer);
+                L.visible = buffer.get() != 0;
+                L.type = buffer.getInt();
+                int propCount = buffer.getInt();
+                for (int p = 0; p < propCount; p++) {
+                    String key = readString(buffer);
+                    L.props.put(key, readString(buffer));
+                }
+                int offset = buffer.getInt();
+                if (offset < 0 || (long) offset + cells * 4L > buffer.capacity()) {
+                    throw new IOException("Layer data out of bounds in " + compiledPath);
+                }
+                // view ตรงบน buffer ไม่มีการ copy
+                ByteBuffer slice = buffer.duplicate().position(offset).limit(offset + cells * 4).slice();
+                L.data = slice.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                L.width = tm.cols;
+                tm.addLayer(L);
+            }
 
+            tm.decorationVisible = !tm.foregroundLayers.isEmpty();
+            tm.buildGidLookup();
+            tm.buildCollisionIndex();
+            return tm;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt compiled map " + compiledPath, e);
         }
+    }
 
-        // ถ้าไม่มีชื่อ decoration แต่มี foreground ให้เปิด decorationVisible ไว้
-        tm.decorationVisible = !tm.foregroundLayers.isEmpty(); // ตามเดิม
+    private static ByteBuffer mapCompiled(String compiledPath) throws IOException {
+        Path file = ResourceLoader.toLocalPath(compiledPath);
+        if (file != null) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        // อยู่ใน jar: map ไม่ได้ อ่านเข้า memory แทน
+        try (InputStream stream = ResourceLoader.openStream(compiledPath)) {
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
 
-        return tm;
+    void writeCompiled(Path target, byte[] contentHash) throws IOException {
+        List<Layer> layers = new ArrayList<>();
+        layers.addAll(backgroundLayers);
+        layers.addAll(foregroundLayers);
+        layers.addAll(collisionLayers);
+        layers.addAll(zoneLayers);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        writeIntLE(out, COMPILED_MAGIC);
+        writeIntLE(out, COMPILED_VERSION);
+        out.write(contentHash, 0, 32);
+        writeIntLE(out, tileW);
+        writeIntLE(out, tileH);
+        writeIntLE(out, cols);
+        writeIntLE(out, rows);
+
+        writeIntLE(out, tilesets.size());
+        for (TilesetEntry entry : tilesets) {
+            Tileset ts = entry.tileset;
+            writeIntLE(out, entry.firstGid);
+            writeString(out, ts.source);
+            writeString(out, ts.imageSource);
+            writeIntLE(out, ts.tileW);
+            writeIntLE(out, ts.tileH);
+            writeIntLE(out, ts.imageW);
+            writeIntLE(out, ts.imageH);
+        }
+
+        writeIntLE(out, layers.size());
+        int[] offsetPositions = new int[layers.size()];
+        for (int i = 0; i < layers.size(); i++) {
+            Layer L = layers.get(i);
+            writeString(out, L.name);
+            out.writeByte(L.visible ? 1 : 0);
+            writeIntLE(out, L.type);
+            writeIntLE(out, L.props.size());
+            for (Map.Entry<String, String> prop : L.props.entrySet()) {
+                writeString(out, prop.getKey());
+                writeString(out, prop.getValue());
+            }
+            offsetPositions[i] = out.size();
+            writeIntLE(out, 0);
+        }
+        out.flush();
+
+        int dataStart = (header.size() + 3) & ~3;
+        int layerBytes = cols * rows * 4;
+        ByteBuffer file = ByteBuffer.allocate(dataStart + layerBytes * layers.size()).order(ByteOrder.LITTLE_ENDIAN);
+        file.put(header.toByteArray());
+        for (int i = 0; i < layers.size(); i++) {
+            int offset = dataStart + i * layerBytes;
+            file.putInt(offsetPositions[i], offset);
+            file.position(offset);
+            IntBuffer data = layers.get(i).data.duplicate().clear();
+            while (data.hasRemaining()) {
+                file.putInt(data.get());
+            }
+        }
+
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, "map-", ".tmp");
+        try {
+            Files.write(temp, file.array());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 
-    // ======== helpers ========
-    private static Map<String, String> readProperties(Element layerEl) {
-        Map<String, String> map = new HashMap<>();
-        NodeList propsNodes = layerEl.getElementsByTagName("properties");
-        if (propsNodes.getLength() == 0) return map;
-        Element propsEl = (Element) propsNodes.item(0);
-        NodeList propList = propsEl.getElementsByTagName("property");
-        for (int i = 0; i < propList.getLength(); i++) {
-            Element p = (Element) propList.item(i);
-            String key = p.getAttribute("name");
-            String v = p.getAttribute("value");
-            if (v.isEmpty()) v = p.getTextContent();
-            if (!key.isEmpty() && v != null) {
-                map.put(key, v.trim());
+    /**
+     * Read-only views of the GIDs of every layer of the given type (0 ground, 1 decoration,
+     * 2 collision, 3 zone), row-major, for {@link TileMapBench}.
+     */
+    List<IntBuffer> layerData(int type) {
+        List<Layer> source = switch (type) {
+            case 0 -> backgroundLayers;
+            case 1 -> foregroundLayers;
+            case 2 -> collisionLayers;
+            case 3 -> zoneLayers;
+            default -> List.of();
+        };
+        List<IntBuffer> views = new ArrayList<>();
+        for (Layer L : source) {
+            if (L != null && L.data != null) {
+                views.add(L.data.asReadOnlyBuffer().clear());
             }
         }
-        return map;
+        return views;
     }
 
+    List<String> getTilesetSources(String tmxPath) {
+        List<String> paths = new ArrayList<>();
+        for (TilesetEntry entry : tilesets) {
+            if (entry.tileset != null && !entry.tileset.source.isEmpty()) {
+                paths.add(ResourceLoader.resolve(tmxPath, entry.tileset.source));
+            }
+        }
+        return paths;
+    }
+
+    static byte[] computeSourceHash(String tmxPath, List<String> tsxPaths) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+        byte[] chunk = new byte[8192];
+        List<String> paths = new ArrayList<>();
+        paths.add(tmxPath);
+        paths.addAll(tsxPaths);
+        for (String path : paths) {
+            try (InputStream stream = ResourceLoader.openStream(path)) {
+                int read;
+                while ((read = stream.read(chunk)) > 0) {
+                    digest.update(chunk, 0, read);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void writeIntLE(DataOutputStream out, int value) throws IOException {
+        out.writeInt(Integer.reverseBytes(value));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        writeIntLE(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ======== helpers ========
     private static int parseInt(String s) {
         if (s == null) return 0;
         try {
@@ -176,41 +605,119 @@ public class TileMap {
 
     public void drawGround(Graphics2D g, Camera cam) {
         // วาดเฉพาะ background (role=RENDER) ที่ visible
-        for (Layer L : backgroundLayers) {
-            if (L != null && L.visible) {
-                drawLayerTiles(g, L.data, cam);
-            }
+        if (g == null || backgroundLayers.isEmpty()) {
+            return;
+        }
+        if (groundCache == null) {
+            groundCache = createChunkCache(backgroundLayers);
         }
+        groundCache.draw(g, cam);
     }
 
     public void drawDecorations(Graphics2D g, Camera cam) {
-        if (!decorationVisible) {
+        if (!decorationVisible || g == null || foregroundLayers.isEmpty()) {
             return;
         }
-        for (Layer L : foregroundLayers) {
-            if (L != null && L.visible) {
-                drawLayerTiles(g, L.data, cam);
-            }
+        if (decorationCache == null) {
+            decorationCache = createChunkCache(foregroundLayers);
         }
+        decorationCache.draw(g, cam);
     }
 
-
-    private void drawLayerTiles(Graphics2D g, int[][] layerData, Camera cam) {
-        if (layerData == null || g == null) {
+    /**
+     * Replaces a single tile and drops the baked chunk that contains it so the next frame re-renders it.
+     */
+    public void setTile(String layerName, int tileX, int tileY, int gid) {
+        if (layerName == null || tileX < 0 || tileX >= cols || tileY < 0 || tileY >= rows) {
             return;
         }
-        forVisibleTiles(layerData, cam, (tileX, tileY, gid) -> {
-            if (gid <= 0) {
-                return;
+        int value = Math.max(0, gid);
+        if (replaceTile(backgroundLayers, layerName, tileX, tileY, value) && groundCache != null) {
+            groundCache.invalidateTile(tileX, tileY);
+        }
+        if (replaceTile(foregroundLayers, layerName, tileX, tileY, value) && decorationCache != null) {
+            decorationCache.invalidateTile(tileX, tileY);
+        }
+        boolean collisionChanged = replaceTile(collisionLayers, layerName, tileX, tileY, value);
+        if (replaceTile(zoneLayers, layerName, tileX, tileY, value) || collisionChanged) {
+            refreshCollisionCell(tileX, tileY);
+        }
+    }
+
+    public void setChunkCacheBudget(long bytes) {
+        chunkCacheBudgetBytes = Math.max(0L, bytes);
+        if (groundCache != null) {
+            groundCache.setBudgetBytes(chunkCacheBudgetBytes);
+        }
+        if (decorationCache != null) {
+            decorationCache.setBudgetBytes(chunkCacheBudgetBytes);
+        }
+    }
+
+    public void invalidateRenderCache() {
+        if (groundCache != null) {
+            groundCache.invalidateAll();
+        }
+        if (decorationCache != null) {
+            decorationCache.invalidateAll();
+        }
+    }
+
+    private static boolean replaceTile(List<Layer> layers, String layerName, int tileX, int tileY, int gid) {
+        boolean changed = false;
+        for (Layer L : layers) {
+            if (L == null || L.data == null || !layerName.equals(L.name)) {
+                continue;
             }
-            int wx = tileX * tileW;
-            int wy = tileY * tileH;
-            drawGID(g, gid, wx, wy, tileW, tileH);
-        });
+            if (L.get(tileX, tileY) != gid) {
+                L.set(tileX, tileY, gid);
+                changed = true;
+            }
+        }
+        return changed;
     }
 
-    private void forVisibleTiles(int[][] layerData, Camera cam, TileVisitor visitor) {
-        if (layerData == null || visitor == null) {
+    private TileChunkCache createChunkCache(List<Layer> layers) {
+        return new TileChunkCache(tileW, tileH, cols, rows, TileChunkCache.DEFAULT_CHUNK_TILES, chunkCacheBudgetBytes,
+                new TileChunkCache.ChunkPainter() {
+                    @Override
+                    public boolean hasTiles(int startCol, int startRow, int endCol, int endRow) {
+                        for (Layer L : layers) {
+                            if (L == null || !L.visible || L.data == null) {
+                                continue;
+                            }
+                            for (int r = startRow; r <= endRow; r++) {
+                                for (int c = startCol; c <= endCol; c++) {
+                                    if (L.get(c, r) > 0) {
+                                        return true;
+                                    }
+                                }
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public void paint(Graphics2D g, int startCol, int startRow, int endCol, int endRow) {
+                        for (Layer L : layers) {
+                            if (L == null || !L.visible || L.data == null) {
+                                continue;
+                            }
+                            for (int r = startRow; r <= endRow; r++) {
+                                for (int c = startCol; c <= endCol; c++) {
+                                    int gid = L.get(c, r);
+                                    if (gid > 0) {
+                                        drawGID(g, gid, c * tileW, r * tileH, tileW, tileH);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                });
+    }
+
+    private void forVisibleTiles(Layer layer, Camera cam, TileVisitor visitor) {
+        if (layer == null || layer.data == null || visitor == null) {
             return;
         }
         if (cols <= 0 || rows <= 0 || tileW <= 0 || tileH <= 0) {
@@ -253,59 +760,157 @@ public class TileMap {
         }
 
         for (int rowIndex = startRow; rowIndex <= endRow; rowIndex++) {
-            int[] row = layerData[rowIndex];
             for (int colIndex = startCol; colIndex <= endCol; colIndex++) {
-                visitor.accept(colIndex, rowIndex, row[colIndex]);
+                visitor.accept(colIndex, rowIndex, layer.get(colIndex, rowIndex));
             }
         }
     }
 
     private void drawGID(Graphics2D g, int gid, int x, int y, int w, int h) {
-        if (gid <= 0) return;
-        TilesetEntry entry = null;
-        for (int i = tilesets.size() - 1; i >= 0; i--) {
-            if (gid >= tilesets.get(i).firstGid) {
-                entry = tilesets.get(i);
-                break;
+        if (gid <= 0 || gid >= gidTilesets.length) return;
+        Tileset ts = gidTilesets[gid];
+        if (ts == null) return;
+        int srcX = gidSrcX[gid];
+        int srcY = gidSrcY[gid];
+        g.drawImage(ts.image, x, y, x + w, y + h, srcX, srcY, srcX + ts.tileW, srcY + ts.tileH, null);
+    }
+
+    void buildGidLookup() {
+        List<TilesetEntry> sorted = new ArrayList<>(tilesets);
+        sorted.sort((a, b) -> Integer.compare(a.firstGid, b.firstGid));
+        int maxGid = 0;
+        for (TilesetEntry entry : sorted) {
+            if (entry != null && entry.tileset != null) {
+                maxGid = Math.max(maxGid, entry.firstGid + entry.tileset.cols * entry.tileset.rows);
+            }
+        }
+
+        Tileset[] lookup = new Tileset[maxGid];
+        int[] srcX = new int[maxGid];
+        int[] srcY = new int[maxGid];
+        for (int i = 0; i < sorted.size(); i++) {
+            TilesetEntry entry = sorted.get(i);
+            if (entry == null || entry.tileset == null || entry.tileset.image == null || entry.tileset.cols <= 0) {
+                continue;
+            }
+            Tileset ts = entry.tileset;
+            // ช่วง GID ของ tileset นี้จบที่ firstgid ของตัวถัดไป (เหมือนการสแกนย้อนแบบเดิม)
+            int end = entry.firstGid + ts.cols * ts.rows;
+            if (i + 1 < sorted.size()) {
+                end = Math.min(end, sorted.get(i + 1).firstGid);
+            }
+            for (int gid = Math.max(1, entry.firstGid); gid < end; gid++) {
+                int index = gid - entry.firstGid;
+                lookup[gid] = ts;
+                srcX[gid] = (index % ts.cols) * ts.tileW;
+                srcY[gid] = (index / ts.cols) * ts.tileH;
             }
         }
-        if (entry == null) return;
-        int localId = gid - entry.firstGid;
-        entry.tileset.drawTile(g, localId, x, y, w, h);
+        gidTilesets = lookup;
+        gidSrcX = srcX;
+        gidSrcY = srcY;
     }
 
     // ---------------- Collision ----------------
-    public boolean isSolid(int tileX, int tileY) {
-        if (tileX < 0 || tileX >= cols || tileY < 0 || tileY >= rows) return true;
+    void buildCollisionIndex() {
+        int cells = Math.max(0, cols * rows);
+        solidBits = new long[(cells + 63) >>> 6];
+        zoneGrid = new byte[cells];
+        zoneNeighbours = null;
+        for (int tileY = 0; tileY < rows; tileY++) {
+            for (int tileX = 0; tileX < cols; tileX++) {
+                refreshCollisionCell(tileX, tileY);
+            }
+        }
+    }
 
-        // เช็คทุก collision layer ใหม่
+    private void refreshCollisionCell(int tileX, int tileY) {
+        int idx = tileY * cols + tileX;
+        boolean solid = false;
         for (Layer L : collisionLayers) {
-            if (L != null && L.data != null) {
-                if (L.data[tileY][tileX] > 0) return true;
+            if (L != null && L.data != null && L.get(tileX, tileY) > 0) {
+                solid = true;
+                break;
             }
         }
-        return false;
-    }
+        if (solid) {
+            solidBits[idx >>> 6] |= 1L << idx;
+        } else {
+            solidBits[idx >>> 6] &= ~(1L << idx);
+        }
 
-    public int getZone(int tileX, int tileY) {
+        int zone = 0;
         for (Layer L : zoneLayers) {
             if (L == null || L.data == null) continue;
-            if (tileY < 0 || tileY >= L.data.length || tileX < 0 || tileX >= L.data[0].length)
-                continue; // นอกขอบ map
+            int gid = L.get(tileX, tileY);
+            if (gid > 0) {
+                zone = zoneForGid(gid);
+                break;
+            }
+        }
+        if (zoneGrid[idx] != zone) {
+            zoneNeighbours = null;
+        }
+        zoneGrid[idx] = (byte) zone;
+    }
+
+    private static int zoneForGid(int gid) {
+        return switch (gid) {
+            case 769 -> 1;
+            case 770 -> 2;
+            case 771 -> 3;
+            case 772 -> 4;
+            default -> 0;
+        };
+    }
 
+    public boolean isSolid(int tileX, int tileY) {
+        if (tileX < 0 || tileX >= cols || tileY < 0 || tileY >= rows) return true;
+        int idx = tileY * cols + tileX;
+        return (solidBits[idx >>> 6] & (1L << idx)) != 0;
+    }
 
-            int gid = L.data[tileY][tileX];
-            if (gid <= 0) continue;
+    public int getZone(int tileX, int tileY) {
+        if (tileX < 0 || tileX >= cols || tileY < 0 || tileY >= rows) return 0; // นอกขอบ map
+        return zoneGrid[tileY * cols + tileX];
+    }
 
-            return switch (gid) {
-                case 769 -> 1;
-                case 770 -> 2;
-                case 771 -> 3;
-                case 772 -> 4;
-                default -> 0;
-            };
+    /**
+     * Bit mask of the zones bordering {@code zone} (bit {@code z} set when a tile of zone {@code z} is
+     * next to one of {@code zone}), not including {@code zone} itself.
+     */
+    public int getAdjacentZones(int zone) {
+        if (zoneNeighbours == null) {
+            zoneNeighbours = buildZoneNeighbours();
         }
-        return 0;
+        return zone >= 0 && zone < zoneNeighbours.length ? zoneNeighbours[zone] : 0;
+    }
+
+    private int[] buildZoneNeighbours() {
+        int[] masks = new int[32];
+        for (int tileY = 0; tileY < rows; tileY++) {
+            for (int tileX = 0; tileX < cols; tileX++) {
+                int zone = zoneGrid[tileY * cols + tileX] & 31;
+                if (tileX + 1 < cols) {
+                    link(masks, zone, zoneGrid[tileY * cols + tileX + 1] & 31);
+                }
+                if (tileY + 1 < rows) {
+                    link(masks, zone, zoneGrid[(tileY + 1) * cols + tileX] & 31);
+                }
+            }
+        }
+        return masks;
+    }
+
+    private static void link(int[] masks, int a, int b) {
+        if (a != b) {
+            masks[a] |= 1 << b;
+            masks[b] |= 1 << a;
+        }
+    }
+
+    TileCollider getCollider() {
+        return collider;
     }
 
     public boolean isSolidAtPixel(double wx, double wy) {
@@ -321,7 +926,7 @@ public class TileMap {
 
             if (L == null || L.data == null) continue;
 
-            forVisibleTiles(L.data, cam, (tileX, tileY, gid) -> {
+            forVisibleTiles(L, cam, (tileX, tileY, gid) -> {
                 if (gid <= 0) return;
                 int wx = tileX * tileW;
                 int wy = tileY * tileH;
@@ -333,7 +938,7 @@ public class TileMap {
     public void drawZoneOverlay(Graphics2D g, Camera cam) {
         if (zoneLayers.isEmpty()) return;
 
-        forVisibleTiles(zoneLayers.get(0).data, cam, (tileX, tileY, gid) -> {
+        forVisibleTiles(zoneLayers.get(0), cam, (tileX, tileY, gid) -> {
             int zone = getZone(tileX, tileY);
             if (zone == 0) return; // ไม่มีโซนตรงนี้
 
@@ -358,16 +963,36 @@ public class TileMap {
 
     private static final class Layer {
         String name;
-        int[][] data;
+        // GID แบบ row-major: heap สำหรับ TMX, view ตรงบนไฟล์ที่ map ไว้สำหรับ compiled map
+        IntBuffer data;
+        int width;
         boolean visible = true;
         int type = 0;
         // เก็บ properties เผื่อใช้ต่อ
         Map<String, String> props = new HashMap<>();
+
+        int get(int col, int row) {
+            return data.get(row * width + col);
+        }
+
+        void set(int col, int row, int gid) {
+            if (data.isReadOnly()) {
+                // copy-on-write: the mapped file itself is never modified
+                IntBuffer copy = IntBuffer.allocate(data.capacity());
+                copy.put(data.duplicate().clear());
+                data = copy;
+            }
+            data.put(row * width + col, gid);
+        }
     }
 
     static final class Tileset {
         BufferedImage image;
         int tileW, tileH, cols, rows;
+        // ที่มาของ tileset เก็บไว้ให้ compiled map สร้างใหม่ได้โดยไม่ต้อง parse TSX
+        String source = "";
+        String imageSource = "";
+        int imageW, imageH;
 
         static Tileset loadFromTSX(String path, int firstGid) throws Exception {
             String normalizedPath = ResourceLoader.normalize(path);
@@ -390,9 +1015,12 @@ public class TileMap {
             String src = img.getAttribute("source");
             int imgW = Integer.parseInt(img.getAttribute("width"));
             int imgH = Integer.parseInt(img.getAttribute("height"));
+            return fromImageSource(normalizedPath, src, tileW, tileH, imgW, imgH);
+        }
 
+        static Tileset fromImageSource(String tsxPath, String src, int tileW, int tileH, int imgW, int imgH) throws IOException {
             BufferedImage bi = null;
-            String resolved = ResourceLoader.resolve(normalizedPath, src);
+            String resolved = ResourceLoader.resolve(tsxPath, src);
             if (ResourceLoader.exists(resolved)) {
                 bi = ResourceLoader.loadImage(resolved);
             } else if (ResourceLoader.exists("resources/tiles/" + src)) {
@@ -408,6 +1036,9 @@ public class TileMap {
             tileset.tileH = tileH;
             tileset.cols = bi.getWidth() / tileW;
             tileset.rows = bi.getHeight() / tileH;
+            tileset.imageSource = src;
+            tileset.imageW = imgW;
+            tileset.imageH = imgH;
             return tileset;
         }
 
@@ -468,33 +1099,6 @@ public class TileMap {
             ts.rows = 2;
             return ts;
         }
-
-        void drawTile(Graphics2D g, int index, int sx, int sy, int w, int h) {
-            if (image == null || index < 0) {
-                return;
-            }
-            int col = index % cols;
-            int row = index / cols;
-            if (row >= rows) {
-                return;
-            }
-
-            int srcX = col * tileW;
-            int srcY = row * tileH;
-
-            g.drawImage(
-                    image,
-                    sx,
-                    sy,
-                    sx + w,
-                    sy + h,
-                    srcX,
-                    srcY,
-                    srcX + tileW,
-                    srcY + tileH,
-                    null
-            );
-        }
     }
 
     static class TilesetEntry {
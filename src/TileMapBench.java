@@ -0,0 +1,175 @@
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Micro-benchmarks for the per-tile lookups of {@link TileMap}, each comparing the original
+ * implementation (re-created here) with the current one over the tiles of a real map.
+ * <pre>
+ * java -cp ... TileMapBench gid [map.tmx] [--passes=N]
+ * java -cp ... TileMapBench collision [map.tmx] [--passes=N]
+ * </pre>
+ * {@code gid} resolves every ground-layer GID to a tileset and source x/y: the old backwards scan
+ * over the tilesets plus the modulo/division of {@code Tileset.drawTile}, against the GID table.
+ * {@code collision} asks {@code isSolid} and {@code getZone} for every tile: the old walk over the
+ * collision/zone layers against the bitset and zone grid.
+ */
+final class TileMapBench {
+    private TileMapBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        String command = args.length > 0 ? args[0] : "gid";
+        String mapPath = "resources/tiles/map.tmx";
+        int passes = 2_000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--passes=")) {
+                passes = Integer.parseInt(args[i].substring("--passes=".length()));
+            } else {
+                mapPath = args[i];
+            }
+        }
+        TileMap map = TileMap.loadFromTMX(mapPath);
+        switch (command) {
+            case "gid" -> benchGid(map, passes);
+            case "collision" -> benchCollision(map, passes);
+            default -> {
+                System.err.println("Usage: TileMapBench gid|collision [map.tmx] [--passes=N]");
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void benchGid(TileMap map, int passes) {
+        int[] gids = concat(map.layerData(0));
+        System.out.printf(Locale.ROOT, "%d ground tiles, %d tilesets, %d passes%n",
+                gids.length, map.tilesets.size(), passes);
+        report("scan", gids.length, passes, () -> resolveByScan(map, gids));
+        report("table", gids.length, passes, () -> resolveByTable(map, gids));
+    }
+
+    /** The lookup as it was before the GID table: newest tileset whose firstgid is not above the GID. */
+    private static long resolveByScan(TileMap map, int[] gids) {
+        long sum = 0;
+        List<TileMap.TilesetEntry> tilesets = map.tilesets;
+        for (int gid : gids) {
+            if (gid <= 0) continue;
+            TileMap.TilesetEntry entry = null;
+            for (int i = tilesets.size() - 1; i >= 0; i--) {
+                if (gid >= tilesets.get(i).firstGid) {
+                    entry = tilesets.get(i);
+                    break;
+                }
+            }
+            if (entry == null) continue;
+            TileMap.Tileset ts = entry.tileset;
+            int index = gid - entry.firstGid;
+            if (ts.image == null || index < 0) continue;
+            int row = index / ts.cols;
+            if (row >= ts.rows) continue;
+            sum += (index % ts.cols) * ts.tileW + row * ts.tileH;
+        }
+        return sum;
+    }
+
+    private static long resolveByTable(TileMap map, int[] gids) {
+        long sum = 0;
+        TileMap.Tileset[] lookup = map.gidTilesets;
+        int[] srcX = map.gidSrcX;
+        int[] srcY = map.gidSrcY;
+        for (int gid : gids) {
+            if (gid <= 0 || gid >= lookup.length || lookup[gid] == null) continue;
+            sum += srcX[gid] + srcY[gid];
+        }
+        return sum;
+    }
+
+    private static void benchCollision(TileMap map, int passes) {
+        List<IntBuffer> collision = map.layerData(2);
+        List<IntBuffer> zones = map.layerData(3);
+        int tiles = map.cols * map.rows;
+        System.out.printf(Locale.ROOT, "%dx%d tiles, %d collision + %d zone layers, %d passes%n",
+                map.cols, map.rows, collision.size(), zones.size(), passes);
+        report("scan", tiles, passes, () -> queryByScan(map, collision, zones));
+        report("bitset", tiles, passes, () -> queryByIndex(map));
+    }
+
+    /** isSolid/getZone as they were before the collision index: every query walks the layers. */
+    private static long queryByScan(TileMap map, List<IntBuffer> collision, List<IntBuffer> zones) {
+        long sum = 0;
+        for (int tileY = 0; tileY < map.rows; tileY++) {
+            for (int tileX = 0; tileX < map.cols; tileX++) {
+                int idx = tileY * map.cols + tileX;
+                for (IntBuffer layer : collision) {
+                    if (layer.get(idx) > 0) {
+                        sum++;
+                        break;
+                    }
+                }
+                for (IntBuffer layer : zones) {
+                    int gid = layer.get(idx);
+                    if (gid <= 0) continue;
+                    sum += switch (gid) {
+                        case 769 -> 1;
+                        case 770 -> 2;
+                        case 771 -> 3;
+                        case 772 -> 4;
+                        default -> 0;
+                    } << 1;
+                    break;
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long queryByIndex(TileMap map) {
+        long sum = 0;
+        for (int tileY = 0; tileY < map.rows; tileY++) {
+            for (int tileX = 0; tileX < map.cols; tileX++) {
+                if (map.isSolid(tileX, tileY)) {
+                    sum++;
+                }
+                sum += map.getZone(tileX, tileY) << 1;
+            }
+        }
+        return sum;
+    }
+
+    private interface Pass {
+        long run();
+    }
+
+    private static void report(String label, int tiles, int passes, Pass pass) {
+        long sink = 0;
+        // warmup ให้ JIT compile ก่อนจับเวลา
+        for (int i = 0; i < Math.max(1, passes / 4); i++) {
+            sink += pass.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < passes; i++) {
+            sink += pass.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf(Locale.ROOT, "%-6s %8.2f ns/tile   (checksum %d)%n",
+                label, (double) elapsed / passes / Math.max(1, tiles), sink);
+    }
+
+    private static int[] concat(List<IntBuffer> layers) {
+        int total = 0;
+        for (IntBuffer layer : layers) {
+            total += layer.remaining();
+        }
+        int[] out = new int[total];
+        int offset = 0;
+        for (IntBuffer layer : layers) {
+            int n = layer.remaining();
+            layer.get(out, offset, n);
+            offset += n;
+        }
+        return out;
+    }
+}
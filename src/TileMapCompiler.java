@@ -0,0 +1,24 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Offline step that turns a TMX map into the binary form read by {@link TileMap#load(String)}.
+ * Usage: {@code java TileMapCompiler [source.tmx] [target.tmc]}
+ */
+final class TileMapCompiler {
+    private TileMapCompiler() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String source = args.length > 0 ? args[0] : "resources/tiles/map.tmx";
+        String target = args.length > 1 ? args[1] : TileMap.compiledPathFor(source);
+
+        long start = System.nanoTime();
+        TileMap map = TileMap.loadFromTMX(source);
+        byte[] hash = TileMap.computeSourceHash(source, map.getTilesetSources(source));
+        Path out = Paths.get(target);
+        map.writeCompiled(out, hash);
+        System.out.printf("Compiled %s -> %s (%dx%d tiles) in %.1f ms%n",
+                source, out, map.cols, map.rows, (System.nanoTime() - start) / 1_000_000.0);
+    }
+}
@@ -3,6 +3,8 @@ import java.io.Serializable;
 import java.util.EnumMap;
 
 abstract class WorldObject implements WorldObjectManager.Interactable, Serializable {
+    private static final Color PLACEHOLDER_COLOR = new Color(160, 120, 64);
+    private static final Color INACTIVE_COLOR = new Color(64, 64, 64, 180);
     final String id;
     final String type;
     private final EnumMap<StateFlag, Boolean> flags = new EnumMap<>(StateFlag.class);
@@ -11,6 +13,8 @@ abstract class WorldObject implements WorldObjectManager.Interactable, Serializa
     int width;
     int height;
     transient Sprite sprite;
+    private transient Rectangle interactionBounds;
+    private transient WorldObjectManager.Interactions interactionIndex;
     private int interactionPriority = 1;
     private String prompt = "Interact";
 
@@ -60,6 +64,9 @@ abstract class WorldObject implements WorldObjectManager.Interactable, Serializa
     void setPosition(double x, double y) {
         this.x = x;
         this.y = y;
+        if (interactionIndex != null) {
+            interactionIndex.refresh(this);
+        }
     }
 
     void setFlag(StateFlag flag, boolean value) {
@@ -101,7 +108,11 @@ abstract class WorldObject implements WorldObjectManager.Interactable, Serializa
 
     @Override
     public Rectangle getInteractionBounds() {
-        return new Rectangle((int) Math.round(x), (int) Math.round(y), width, height);
+        if (interactionBounds == null) {
+            interactionBounds = new Rectangle();
+        }
+        interactionBounds.setBounds((int) Math.round(x), (int) Math.round(y), width, height);
+        return interactionBounds;
     }
 
     @Override
@@ -121,6 +132,14 @@ abstract class WorldObject implements WorldObjectManager.Interactable, Serializa
 
     void setInteractionPriority(int priority) {
         this.interactionPriority = priority;
+        if (interactionIndex != null) {
+            interactionIndex.refresh(this);
+        }
+    }
+
+    @Override
+    public void setInteractionIndex(WorldObjectManager.Interactions index) {
+        this.interactionIndex = index;
     }
 
     @Override
@@ -148,13 +167,13 @@ abstract class WorldObject implements WorldObjectManager.Interactable, Serializa
         if (sprite != null) {
             sprite.draw(g, x, y, width, height);
         } else {
-            g.setColor(new Color(160, 120, 64));
+            g.setColor(PLACEHOLDER_COLOR);
             g.fillRect((int) Math.round(x), (int) Math.round(y), width, height);
         }
     }
 
     private void drawInactive(Graphics2D g) {
-        g.setColor(new Color(64, 64, 64, 180));
+        g.setColor(INACTIVE_COLOR);
         g.fillRect((int) Math.round(x), (int) Math.round(y), width, height);
     }
 
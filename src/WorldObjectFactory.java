@@ -130,6 +130,9 @@ final class WorldObjectFactory {
     }
 
     static final class DoorObject extends WorldObject {
+        private static final Color DOOR_COLOR = new Color(160, 110, 60);
+        private static final Color DOOR_LOCKED_COLOR = new Color(120, 80, 40);
+        private static final Color DOOR_OPEN_COLOR = new Color(190, 190, 190);
         private boolean locked;
         private boolean open;
 
@@ -191,9 +194,9 @@ final class WorldObjectFactory {
 
         @Override
         void draw(Graphics2D g) {
-            Color color = locked ? new Color(120, 80, 40) : new Color(160, 110, 60);
+            Color color = locked ? DOOR_LOCKED_COLOR : DOOR_COLOR;
             if (open) {
-                color = new Color(190, 190, 190);
+                color = DOOR_OPEN_COLOR;
             }
             g.setColor(color);
             g.fillRect((int) Math.round(x), (int) Math.round(y), width, height);
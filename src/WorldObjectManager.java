@@ -1,8 +1,10 @@
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 class WorldObjectManager {
     private final GamePanel gamePanel;
@@ -22,6 +24,14 @@ class WorldObjectManager {
         return Collections.unmodifiableList(worldObjects);
     }
 
+    int getWorldObjectCount() {
+        return worldObjects.size();
+    }
+
+    WorldObject getWorldObject(int index) {
+        return worldObjects.get(index);
+    }
+
     void add(WorldObject object) {
         if (object == null || worldObjects.contains(object)) {
             return;
@@ -96,6 +106,17 @@ class WorldObjectManager {
 
         default void update(double dt) {
         }
+
+        /**
+         * Called with the owning index on register and {@code null} on unregister; implementations that can
+         * move or change priority keep it and call {@link Interactions#refresh(Interactable)} afterwards.
+         */
+        default void setInteractionIndex(Interactions index) {
+        }
+    }
+
+    interface AreaVisitor {
+        void visit(Interactable interactable);
     }
 
     static final class InteractionContext {
@@ -185,22 +206,59 @@ class WorldObjectManager {
     }
 
     final class Interactions {
+        // cell 64px (2x2 tile) ให้ query ระยะ interactionRange แตะแค่ไม่กี่ cell
+        static final int CELL_SIZE = 64;
+
         private final List<Interactable> interactables = new ArrayList<>();
+        private final Map<Interactable, Entry> entries = new IdentityHashMap<>();
+        private final SpatialGrid grid = new SpatialGrid();
         private double interactionRange = 64.0;
+        private int maxPriority;
+        private double maxHalfExtent;
+        private long nextSequence;
 
         void register(Interactable interactable) {
-            if (interactable == null || interactables.contains(interactable)) {
+            if (interactable == null || entries.containsKey(interactable)) {
                 return;
             }
             interactables.add(interactable);
+            Entry entry = new Entry(interactable, nextSequence++);
+            entries.put(interactable, entry);
+            index(entry);
+            interactable.setInteractionIndex(this);
         }
 
         void unregister(Interactable interactable) {
+            Entry entry = entries.remove(interactable);
+            if (entry == null) {
+                return;
+            }
+            grid.remove(entry);
             interactables.remove(interactable);
+            interactable.setInteractionIndex(null);
+        }
+
+        /**
+         * Re-buckets an interactable after its bounds or priority changed.
+         */
+        void refresh(Interactable interactable) {
+            Entry entry = interactable != null ? entries.get(interactable) : null;
+            if (entry == null) {
+                return;
+            }
+            grid.remove(entry);
+            index(entry);
         }
 
         void clear() {
+            for (Interactable interactable : interactables) {
+                interactable.setInteractionIndex(null);
+            }
             interactables.clear();
+            entries.clear();
+            grid.clear();
+            maxPriority = 0;
+            maxHalfExtent = 0.0;
         }
 
         void setInteractionRange(double range) {
@@ -232,51 +290,228 @@ class WorldObjectManager {
         }
 
         Interactable findBestInteractable(Player actor) {
-            if (actor == null || interactables.isEmpty()) {
+            if (actor == null || entries.isEmpty()) {
                 return null;
             }
-            Rectangle actorBounds = createActorBounds(actor);
+            double actorX = Math.round(actor.getPreciseX()) + Math.max(1, actor.getW()) / 2.0;
+            double actorY = Math.round(actor.getPreciseY()) + Math.max(1, actor.getH()) / 2.0;
+            double rangeSq = interactionRange * interactionRange;
+            // score = distance² / (1 + priority) so a high-priority target counts from further away
+            double reach = interactionRange * Math.sqrt(1.0 + maxPriority);
+            int minCellX = cellOf(actorX - reach);
+            int maxCellX = cellOf(actorX + reach);
+            int minCellY = cellOf(actorY - reach);
+            int maxCellY = cellOf(actorY + reach);
+
             double bestScore = Double.MAX_VALUE;
+            long bestSequence = Long.MAX_VALUE;
             Interactable best = null;
-            for (Interactable interactable : interactables) {
-                if (interactable == null || !interactable.isActive()) {
-                    continue;
-                }
-                Rectangle bounds = interactable.getInteractionBounds();
-                if (bounds == null) {
-                    continue;
-                }
-                double score = scoreInteraction(actorBounds, bounds, interactable.getInteractionPriority());
-                if (score < bestScore && score <= interactionRange * interactionRange) {
-                    bestScore = score;
-                    best = interactable;
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                for (int cx = minCellX; cx <= maxCellX; cx++) {
+                    Bucket bucket = grid.find(cx, cy);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bucket.size; i++) {
+                        Entry entry = bucket.entries[i];
+                        Interactable interactable = entry.interactable;
+                        if (!interactable.isActive()) {
+                            continue;
+                        }
+                        Rectangle bounds = interactable.getInteractionBounds();
+                        if (bounds == null) {
+                            continue;
+                        }
+                        double score = scoreInteraction(actorX, actorY, bounds, interactable.getInteractionPriority());
+                        if (score > rangeSq) {
+                            continue;
+                        }
+                        // เสมอกันให้ตัวที่ register ก่อนชนะ เหมือนตอนไล่ทั้ง list
+                        if (score < bestScore || (score == bestScore && entry.sequence < bestSequence)) {
+                            bestScore = score;
+                            bestSequence = entry.sequence;
+                            best = interactable;
+                        }
+                    }
                 }
             }
             return best;
         }
 
-        private Rectangle createActorBounds(Player actor) {
-            int w = Math.max(1, actor.getW());
-            int h = Math.max(1, actor.getH());
-            int x = (int) Math.round(actor.getPreciseX());
-            int y = (int) Math.round(actor.getPreciseY());
-            return new Rectangle(x, y, w, h);
+        /**
+         * Visits every interactable whose bounds intersect the given world rectangle, without allocating.
+         */
+        void forEachInArea(double left, double top, double right, double bottom, AreaVisitor visitor) {
+            if (visitor == null || entries.isEmpty()) {
+                return;
+            }
+            // grid เก็บตามจุดกึ่งกลาง จึงต้องขยายขอบเขตเท่าครึ่งหนึ่งของวัตถุที่ใหญ่ที่สุด
+            int minCellX = cellOf(left - maxHalfExtent);
+            int maxCellX = cellOf(right + maxHalfExtent);
+            int minCellY = cellOf(top - maxHalfExtent);
+            int maxCellY = cellOf(bottom + maxHalfExtent);
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                for (int cx = minCellX; cx <= maxCellX; cx++) {
+                    Bucket bucket = grid.find(cx, cy);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < bucket.size; i++) {
+                        Interactable interactable = bucket.entries[i].interactable;
+                        Rectangle bounds = interactable.getInteractionBounds();
+                        if (bounds == null
+                                || bounds.getX() + bounds.getWidth() < left || bounds.getX() > right
+                                || bounds.getY() + bounds.getHeight() < top || bounds.getY() > bottom) {
+                            continue;
+                        }
+                        visitor.visit(interactable);
+                    }
+                }
+            }
         }
 
-        private double scoreInteraction(Rectangle actorBounds, Rectangle targetBounds, int priority) {
-            double dx = centerX(actorBounds) - centerX(targetBounds);
-            double dy = centerY(actorBounds) - centerY(targetBounds);
+        private void index(Entry entry) {
+            Interactable interactable = entry.interactable;
+            Rectangle bounds = interactable.getInteractionBounds();
+            if (bounds != null) {
+                entry.cellX = cellOf(bounds.getX() + bounds.getWidth() / 2.0);
+                entry.cellY = cellOf(bounds.getY() + bounds.getHeight() / 2.0);
+                maxHalfExtent = Math.max(maxHalfExtent, Math.max(bounds.getWidth(), bounds.getHeight()) / 2.0);
+            } else {
+                entry.cellX = 0;
+                entry.cellY = 0;
+            }
+            maxPriority = Math.max(maxPriority, interactable.getInteractionPriority());
+            grid.add(entry);
+        }
+
+        private int cellOf(double coordinate) {
+            return (int) Math.floor(coordinate / CELL_SIZE);
+        }
+
+        private double scoreInteraction(double actorX, double actorY, Rectangle targetBounds, int priority) {
+            double dx = actorX - (targetBounds.getX() + targetBounds.getWidth() / 2.0);
+            double dy = actorY - (targetBounds.getY() + targetBounds.getHeight() / 2.0);
             double distanceSq = dx * dx + dy * dy;
             double priorityWeight = 1.0 + Math.max(0, priority);
             return distanceSq / priorityWeight;
         }
+    }
+
+    private static final class Entry {
+        final Interactable interactable;
+        final long sequence;
+        int cellX;
+        int cellY;
+        Bucket bucket;
+        int slot;
+
+        Entry(Interactable interactable, long sequence) {
+            this.interactable = interactable;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Bucket {
+        Entry[] entries = new Entry[4];
+        int size;
+    }
+
+    /**
+     * Sparse uniform grid keyed by packed cell coordinates, open addressing so a lookup never boxes a key.
+     * Buckets are kept once created; the set of occupied cells is bounded by the map size.
+     */
+    private static final class SpatialGrid {
+        private long[] keys = new long[64];
+        private Bucket[] buckets = new Bucket[64];
+        private int used;
+
+        Bucket find(int cellX, int cellY) {
+            long key = key(cellX, cellY);
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; buckets[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return buckets[i];
+                }
+            }
+            return null;
+        }
+
+        void add(Entry entry) {
+            Bucket bucket = findOrCreate(entry.cellX, entry.cellY);
+            if (bucket.size == bucket.entries.length) {
+                Entry[] grown = new Entry[bucket.size * 2];
+                System.arraycopy(bucket.entries, 0, grown, 0, bucket.size);
+                bucket.entries = grown;
+            }
+            entry.bucket = bucket;
+            entry.slot = bucket.size;
+            bucket.entries[bucket.size++] = entry;
+        }
+
+        void remove(Entry entry) {
+            Bucket bucket = entry.bucket;
+            if (bucket == null) {
+                return;
+            }
+            int last = --bucket.size;
+            Entry moved = bucket.entries[last];
+            bucket.entries[entry.slot] = moved;
+            moved.slot = entry.slot;
+            bucket.entries[last] = null;
+            entry.bucket = null;
+        }
+
+        void clear() {
+            keys = new long[64];
+            buckets = new Bucket[64];
+            used = 0;
+        }
+
+        private Bucket findOrCreate(int cellX, int cellY) {
+            long key = key(cellX, cellY);
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; buckets[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return buckets[i];
+                }
+            }
+            Bucket bucket = new Bucket();
+            keys[i] = key;
+            buckets[i] = bucket;
+            if (++used * 2 > keys.length) {
+                grow();
+            }
+            return bucket;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Bucket[] oldBuckets = buckets;
+            keys = new long[oldKeys.length * 2];
+            buckets = new Bucket[oldBuckets.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldBuckets[j] == null) {
+                    continue;
+                }
+                int i = hash(oldKeys[j]) & mask;
+                while (buckets[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                buckets[i] = oldBuckets[j];
+            }
+        }
 
-        private double centerX(Rectangle rect) {
-            return rect.getX() + rect.getWidth() / 2.0;
+        private static long key(int cellX, int cellY) {
+            return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
         }
 
-        private double centerY(Rectangle rect) {
-            return rect.getY() + rect.getHeight() / 2.0;
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
         }
     }
 }